@@ -30,7 +30,6 @@ val protobufVersion = "3.21.2"
 
 dependencies {
     implementation("org.jetbrains:annotations:23.0.0")
-    implementation("com.github.takawitter:trie4j:0.9.8")
     implementation("commons-io:commons-io:2.11.0")
     implementation("io.github.dictzip:dictzip:0.13.0")
     implementation("com.google.protobuf:protobuf-java:$protobufVersion")
@@ -95,7 +94,7 @@ java {
 tasks.withType<Javadoc> {
     exclude("io/github/eb4j/dsl/DslParser*",
             "io/github/eb4j/dsl/Token*",
-            "io/github/eb4j/dsl/JavaCharStream.java",
+            "io/github/eb4j/dsl/CharStream.java",
             "io/github/eb4j/dsl/ParseException.java",
             "io/github/eb4j/dsl/DslIndexOuterClass.java"
             )
@@ -0,0 +1,77 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2021,2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.dsl;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Decoder of article from record bytes into reusable buffers.
+ * <p>
+ * Result is same as trimmed article made from a string of the record, but no string is made.
+ * A decoder is used by one thread at a time, and returned text is valid until next decode.
+ */
+final class ArticleDecoder {
+
+    private static final int INITIAL_SIZE = 1024;
+
+    private final CharsetDecoder decoder;
+    private CharBuffer chars = CharBuffer.allocate(INITIAL_SIZE);
+    private char[] text = new char[INITIAL_SIZE];
+
+    ArticleDecoder(final Charset charset) {
+        // same replacement as new String(bytes, charset)
+        decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Decode record, normalize line breaks and trim.
+     * @param bytes record bytes.
+     * @return view of article on buffer of decoder.
+     * @throws CharacterCodingException when decoder fails, that does not happen with replacement.
+     */
+    CharBuffer decode(final byte[] bytes) throws CharacterCodingException {
+        int capacity = (int) Math.ceil(bytes.length * (double) decoder.maxCharsPerByte());
+        if (chars.capacity() < capacity) {
+            chars = CharBuffer.allocate(capacity);
+        }
+        chars.clear();
+        decoder.reset();
+        CoderResult result = decoder.decode(ByteBuffer.wrap(bytes), chars, true);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        result = decoder.flush(chars);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        chars.flip();
+        int size = chars.remaining() * DslDictionary.LINE_SEPARATOR.length();
+        if (text.length < size) {
+            text = new char[size];
+        }
+        return DslDictionary.trim(text, DslDictionary.normalizeLineBreaks(chars, text));
+    }
+}
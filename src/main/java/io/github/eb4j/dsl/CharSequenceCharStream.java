@@ -0,0 +1,344 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2021,2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.dsl;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Parser input over a char sequence in memory.
+ * <p>
+ * Characters are read from the sequence by index, without copying to a buffer, so a String
+ * or a CharBuffer of decoded article is parsed as is. Same as JavaCharStream, which is used
+ * by JavaCC with JAVA_UNICODE_ESCAPE option, a backslash-u escape is read as the escaped
+ * character, and line and column of tokens are same. Only text which has an escape is
+ * decoded into an array.
+ */
+final class CharSequenceCharStream implements CharStream {
+
+    private static final int HEX_DIGITS = 4;
+
+    /** Text to read. */
+    private final CharSequence raw;
+    /** Characters read by parser; same as raw unless raw has an escape. */
+    private final CharSequence chars;
+    /** Index in raw of each character, or null when chars is raw. */
+    private final int[] positions;
+    /** Index of characters where an invalid escape is, or -1. */
+    private final int errorAt;
+    /** Index in raw of last char before invalid escape. */
+    private final int errorPosition;
+
+    /** Index of last character read. */
+    private int pos = -1;
+    private int tokenBegin;
+    private int tabSize = 1;
+    private boolean trackLineColumn = true;
+
+    /* Line and column of raw text, scanned to the index. */
+    private int scanned = -1;
+    private int line = 1;
+    private int column;
+    private boolean prevCharIsCR;
+    private boolean prevCharIsLF;
+
+    CharSequenceCharStream(final CharSequence text) {
+        raw = text;
+        if (!hasEscape(text)) {
+            chars = text;
+            positions = null;
+            errorAt = -1;
+            errorPosition = -1;
+            return;
+        }
+        // rare: unescape whole text, and keep position of each char for line and column
+        StringBuilder sb = new StringBuilder(text.length());
+        int[] index = new int[text.length()];
+        int invalid = -1;
+        int invalidPosition = -1;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c != '\\') {
+                index[sb.length()] = i;
+                sb.append(c);
+                i++;
+                continue;
+            }
+            int j = i;
+            while (j < text.length() && text.charAt(j) == '\\') {
+                j++;
+            }
+            if (j == text.length() || text.charAt(j) != 'u' || ((j - i) & 1) == 0) {
+                for (int k = i; k < j; k++) {
+                    index[sb.length()] = k;
+                    sb.append('\\');
+                }
+                i = j;
+                continue;
+            }
+            int k = j;
+            while (k < text.length() && text.charAt(k) == 'u') {
+                k++;
+            }
+            int value = hexValue(text, k);
+            if (value < 0) {
+                // error is thrown when the run of backslashes is read
+                invalid = sb.length();
+                invalidPosition = k - 1;
+                break;
+            }
+            for (int b = i; b < j - 1; b++) {
+                index[sb.length()] = b;
+                sb.append('\\');
+            }
+            // escaped char is at its last backslash
+            index[sb.length()] = j - 1;
+            sb.append((char) value);
+            i = k + HEX_DIGITS;
+        }
+        chars = sb;
+        positions = index;
+        errorAt = invalid;
+        errorPosition = invalidPosition;
+    }
+
+    /**
+     * Whether text has a backslash-u escape, that is odd number of backslashes followed by 'u'.
+     */
+    private static boolean hasEscape(final CharSequence text) {
+        int i = 0;
+        while (i < text.length()) {
+            if (text.charAt(i) != '\\') {
+                i++;
+                continue;
+            }
+            int j = i;
+            while (j < text.length() && text.charAt(j) == '\\') {
+                j++;
+            }
+            if (j < text.length() && text.charAt(j) == 'u' && ((j - i) & 1) == 1) {
+                return true;
+            }
+            i = j;
+        }
+        return false;
+    }
+
+    private static int hexValue(final CharSequence text, final int start) {
+        if (start + HEX_DIGITS > text.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < start + HEX_DIGITS; i++) {
+            char c = text.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                digit = c - 'a' + 10;
+            } else if (c >= 'A' && c <= 'F') {
+                digit = c - 'A' + 10;
+            } else {
+                return -1;
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        if (pos + 1 >= chars.length()) {
+            if (pos + 1 == errorAt) {
+                scan(errorPosition);
+                throw new Error("Invalid escape character at line " + line + " column " + column + ".");
+            }
+            throw new EOFException();
+        }
+        return chars.charAt(++pos);
+    }
+
+    @Override
+    public char BeginToken() throws IOException {
+        tokenBegin = pos + 1;
+        return readChar();
+    }
+
+    @Override
+    public void backup(final int amount) {
+        pos -= amount;
+    }
+
+    @Override
+    public String GetImage() {
+        return chars.subSequence(tokenBegin, pos + 1).toString();
+    }
+
+    @Override
+    public char[] GetSuffix(final int len) {
+        char[] ret = new char[len];
+        for (int i = 0; i < len; i++) {
+            ret[i] = chars.charAt(pos - len + 1 + i);
+        }
+        return ret;
+    }
+
+    @Override
+    public void Done() {
+    }
+
+    @Override
+    @Deprecated
+    public int getColumn() {
+        return getEndColumn();
+    }
+
+    @Override
+    @Deprecated
+    public int getLine() {
+        return getEndLine();
+    }
+
+    @Override
+    public int getEndColumn() {
+        scan(rawIndex(endIndex()));
+        return column;
+    }
+
+    @Override
+    public int getEndLine() {
+        scan(rawIndex(endIndex()));
+        return line;
+    }
+
+    @Override
+    public int getBeginColumn() {
+        scan(rawIndex(tokenBegin));
+        return column;
+    }
+
+    @Override
+    public int getBeginLine() {
+        scan(rawIndex(tokenBegin));
+        return line;
+    }
+
+    @Override
+    public void setTabSize(final int i) {
+        tabSize = i;
+    }
+
+    @Override
+    public int getTabSize() {
+        return tabSize;
+    }
+
+    @Override
+    public boolean getTrackLineColumn() {
+        return trackLineColumn;
+    }
+
+    /**
+     * Set whether to track line and column.
+     * <p>
+     * Line and column are counted only when asked, so this flag is only kept.
+     * @param track flag.
+     */
+    @Override
+    public void setTrackLineColumn(final boolean track) {
+        trackLineColumn = track;
+    }
+
+    /**
+     * Index of last character of token, or end of input for the token at end of input.
+     */
+    private int endIndex() {
+        if (tokenBegin >= chars.length()) {
+            return tokenBegin;
+        }
+        return pos;
+    }
+
+    /**
+     * Index in raw text of a character.
+     * <p>
+     * Past the end, it is the last char of raw text, as line and column at end of input
+     * are those of last char.
+     */
+    private int rawIndex(final int index) {
+        if (index >= chars.length()) {
+            return raw.length() - 1;
+        }
+        if (index < 0 || positions == null) {
+            return index;
+        }
+        return positions[index];
+    }
+
+    /**
+     * Count line and column to a char of raw text.
+     * <p>
+     * Tokens are asked in order, so counting goes forward from last one, and starts over only
+     * when asked before it.
+     * @param index index of char in raw text, or -1 for start of text.
+     */
+    private void scan(final int index) {
+        if (index < scanned) {
+            scanned = -1;
+            line = 1;
+            column = 0;
+            prevCharIsCR = false;
+            prevCharIsLF = false;
+        }
+        while (scanned < index) {
+            updateLineColumn(raw.charAt(++scanned));
+        }
+    }
+
+    private void updateLineColumn(final char c) {
+        column++;
+        if (prevCharIsLF) {
+            prevCharIsLF = false;
+            column = 1;
+            line++;
+        } else if (prevCharIsCR) {
+            prevCharIsCR = false;
+            if (c == '\n') {
+                prevCharIsLF = true;
+            } else {
+                column = 1;
+                line++;
+            }
+        }
+        switch (c) {
+            case '\r':
+                prevCharIsCR = true;
+                break;
+            case '\n':
+                prevCharIsLF = true;
+                break;
+            case '\t':
+                column--;
+                column += tabSize - column % tabSize;
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -22,8 +22,10 @@ package io.github.eb4j.dsl;
 import io.github.eb4j.dsl.visitor.DslVisitor;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public class DslArticle implements Visitable {
     private ElementSequence elements;
@@ -64,18 +66,136 @@ public class DslArticle implements Visitable {
         public abstract String toString();
     }
 
+    /**
+     * Names of tag known by parser.
+     * <p>
+     * Tag vocabulary of DSL is closed, so a visitor can switch on it instead of comparing names.
+     */
+    public enum TagId {
+        /** [m] Paragraph with no indent. */
+        M("m"),
+        /** [m1] Paragraph with indent level 1. */
+        M1("m1"),
+        /** [m2] Paragraph with indent level 2. */
+        M2("m2"),
+        /** [m3] Paragraph with indent level 3. */
+        M3("m3"),
+        /** [m4] Paragraph with indent level 4. */
+        M4("m4"),
+        /** [m5] Paragraph with indent level 5. */
+        M5("m5"),
+        /** [m6] Paragraph with indent level 6. */
+        M6("m6"),
+        /** [m7] Paragraph with indent level 7. */
+        M7("m7"),
+        /** [m8] Paragraph with indent level 8. */
+        M8("m8"),
+        /** [m9] Paragraph with indent level 9. */
+        M9("m9"),
+        /** [b] Bold. */
+        B("b"),
+        /** [br] Line break. */
+        BR("br"),
+        /** [c] Color. */
+        C("c"),
+        /** [com] Comment. */
+        COM("com"),
+        /** [ex] Example. */
+        EX("ex"),
+        /** [i] Italic. */
+        I("i"),
+        /** [lang] Language of text. */
+        LANG("lang"),
+        /** [p] Label. */
+        P("p"),
+        /** [preview] Media shown in place. */
+        PREVIEW("preview"),
+        /** [ref] Reference to other card. */
+        REF("ref"),
+        /** [s] Sound or picture file. */
+        S("s"),
+        /** [sub] Subscript. */
+        SUB("sub"),
+        /** [sup] Superscript. */
+        SUP("sup"),
+        /** [t] Transcription. */
+        T("t"),
+        /** [trn] Translation. */
+        TRN("trn"),
+        /** [trn1] Translation, indexed. */
+        TRN1("trn1"),
+        /** [trs] Translation, indexed for full text search. */
+        TRS("trs"),
+        /** [!trs] Translation, not indexed for full text search. */
+        NOT_TRS("!trs"),
+        /** [u] Underline. */
+        U("u"),
+        /** [video] Video file. */
+        VIDEO("video"),
+        /** ['] Stress mark. */
+        STRESS("'"),
+        /** [*] Details, shown only in full view. */
+        DETAILS("*");
+
+        private static final Map<String, TagId> NAMES = new HashMap<>();
+
+        static {
+            for (TagId id : values()) {
+                NAMES.put(id.tagName, id);
+            }
+        }
+
+        private final String tagName;
+
+        TagId(final String tagName) {
+            this.tagName = tagName;
+        }
+
+        /**
+         * Getter of tag name.
+         * @return tag name as written in article.
+         */
+        public String getTagName() {
+            return tagName;
+        }
+
+        /**
+         * Find id of tag name.
+         * @param name tag name.
+         * @return id, or null when name is not a tag known by parser.
+         */
+        public static TagId of(final String name) {
+            return NAMES.get(name);
+        }
+    }
+
     /**
      * Class to express Tag [...].
      */
     public static class Tag extends DslElement {
+        /**
+         * Shared tags without attribute, indexed by ordinal of id.
+         */
+        private static final Tag[] PLAIN_TAGS = new Tag[TagId.values().length];
+
+        static {
+            for (TagId id : TagId.values()) {
+                PLAIN_TAGS[id.ordinal()] = new Tag(id.getTagName(), null);
+            }
+        }
+
         /**
          * Name of tag.
          */
-        private String tagName;
+        private final String tagName;
+        /**
+         * Id of tag name, or null when name is not known by parser.
+         */
+        private final TagId tagId;
         /**
          * Attribute when exist. Otherwise it is null.
          */
-        private Attribute attribute;
+        private final Attribute attribute;
 
         /**
          * constructor.
@@ -84,9 +204,28 @@ public class DslArticle implements Visitable {
          */
         public Tag(final String t, final Attribute a) {
             tagName = t;
+            tagId = TagId.of(t);
             attribute = a;
         }
 
+        /**
+         * Tag of name and attribute.
+         * <p>
+         * Tags are immutable, and a known tag without attribute is a shared instance.
+         * @param t tag name.
+         * @param a attribute, or null.
+         * @return tag.
+         */
+        public static Tag of(final String t, final Attribute a) {
+            if (a == null) {
+                TagId id = TagId.of(t);
+                if (id != null) {
+                    return PLAIN_TAGS[id.ordinal()];
+                }
+            }
+            return new Tag(t, a);
+        }
+
         /**
          * Getter of tagName.
          * @return tag name.
@@ -95,6 +234,14 @@ public class DslArticle implements Visitable {
             return tagName;
         }
 
+        /**
+         * Getter of tag id.
+         * @return id of tag name, or null when name is not known by parser.
+         */
+        public TagId getTagId() {
+            return tagId;
+        }
+
         /**
          * Is Tag name?
          * @param name of tag to be checked.
@@ -151,10 +298,38 @@ public class DslArticle implements Visitable {
      * EndTag class to express [/...].
      */
     public static class EndTag extends DslElement {
-        private String tagName;
+        /**
+         * Shared end tags, indexed by ordinal of id.
+         */
+        private static final EndTag[] END_TAGS = new EndTag[TagId.values().length];
+
+        static {
+            for (TagId id : TagId.values()) {
+                END_TAGS[id.ordinal()] = new EndTag(id.getTagName());
+            }
+        }
+
+        private final String tagName;
+        private final TagId tagId;
 
         public EndTag(final String t) {
             tagName = t;
+            tagId = TagId.of(t);
+        }
+
+        /**
+         * End tag of name.
+         * <p>
+         * End tags are immutable, and end tag of a known name is a shared instance.
+         * @param t tag name.
+         * @return end tag.
+         */
+        public static EndTag of(final String t) {
+            TagId id = TagId.of(t);
+            if (id != null) {
+                return END_TAGS[id.ordinal()];
+            }
+            return new EndTag(t);
         }
 
         /**
@@ -165,6 +340,14 @@ public class DslArticle implements Visitable {
             return tagName;
         }
 
+        /**
+         * Getter of tag id.
+         * @return id of tag name, or null when name is not known by parser.
+         */
+        public TagId getTagId() {
+            return tagId;
+        }
+
         /**
          * Is Tag name?
          * @param name of tag to be checked.
@@ -313,6 +496,11 @@ public class DslArticle implements Visitable {
      */
     public static class Newline extends DslElement {
 
+        /**
+         * Shared instance; a new line has no state.
+         */
+        public static final Newline INSTANCE = new Newline();
+
         private static final String NL = System.getProperty("line.separator");
 
         /**
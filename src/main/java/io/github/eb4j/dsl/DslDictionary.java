@@ -18,19 +18,30 @@
 
 package io.github.eb4j.dsl;
 
+import io.github.eb4j.dsl.data.CacheStats;
 import io.github.eb4j.dsl.data.DictionaryData;
 import io.github.eb4j.dsl.data.DslDictionaryProperty;
 import io.github.eb4j.dsl.data.DslEntry;
+import io.github.eb4j.dsl.impl.BoundedCache;
+import io.github.eb4j.dsl.visitor.DslVisitor;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.CharBuffer;
 import java.nio.file.Path;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 
 
@@ -47,23 +58,193 @@ public abstract class DslDictionary {
     protected static final Pattern DELIMITER_PATTERN = Pattern.compile(
             "(\\r\\n|[\\n\\r\\u2028\\u2029\\u0085])+(\\s+)?");
 
+    /** Average length of article to estimate number of cached articles. */
+    private static final int AVERAGE_ARTICLE_LENGTH = 256;
+
+    /** Cache of trimmed articles keyed by offset, or null when disabled. */
+    private final BoundedCache<String> articleCache;
+
+    /** Executor of asynchronous look up. */
+    private final Executor asyncExecutor;
+
+    /** Decoders to parse articles from record bytes, reused by threads in turn. */
+    private final Queue<ArticleDecoder> decoders = new ConcurrentLinkedQueue<>();
+
     protected DslDictionary(final DictionaryData<DslEntry> dictionaryData, final DslDictionaryProperty prop) {
+        this(dictionaryData, prop, DslDictionaryOptions.defaults());
+    }
+
+    /**
+     * Constructor.
+     * @param dictionaryData index of dictionary.
+     * @param prop dictionary property.
+     * @param options options, such as capacity of article cache.
+     */
+    protected DslDictionary(final DictionaryData<DslEntry> dictionaryData, final DslDictionaryProperty prop,
+                            final DslDictionaryOptions options) {
         this.dictionaryData = dictionaryData;
         this.prop = prop;
+        asyncExecutor = options.getAsyncExecutor();
+        long size = options.getArticleCacheSize();
+        if (size == 0) {
+            articleCache = null;
+        } else if (options.isArticleCacheWeightedByLength()) {
+            articleCache = new BoundedCache<>(options.getArticleCachePolicy(), size,
+                    size / AVERAGE_ARTICLE_LENGTH, String::length);
+        } else {
+            articleCache = new BoundedCache<>(options.getArticleCachePolicy(), size, size, article -> 1);
+        }
     }
 
     /**
      * Search article with exact match for given word.
+     * <p>
+     * Only index is searched here; headword and article of each entry are read when
+     * they are accessed from the result.
      * @param word search word.
      * @return DslResult object
      * @throws IOException when I/O error occurred
      */
     public DslResult lookup(final String word) throws IOException {
-        List<Map.Entry<String, String>> result = new ArrayList<>();
-        for (Map.Entry<String, DslEntry> en: dictionaryData.lookUp(word)) {
-            result.add(new AbstractMap.SimpleImmutableEntry<>(getHeadWord(en.getValue()), getArticle(en.getValue())));
+        return read(dictionaryData.lookUp(word));
+    }
+
+    /**
+     * Search articles with exact match for each of given words.
+     * <p>
+     * All words are resolved in index first, then articles of all results are
+     * read in order of their position, merging neighbouring records into one read. For
+     * dictzip file, each chunk is inflated once in the batch.
+     * @param words search words.
+     * @return DslResult object for each word, in order of words.
+     * @throws IOException when I/O error occurred
+     */
+    public List<DslResult> lookupAll(final Collection<String> words) throws IOException {
+        List<List<Map.Entry<String, DslEntry>>> found = new ArrayList<>(words.size());
+        for (String word : words) {
+            found.add(dictionaryData.lookUp(word));
         }
-        return new DslResult(result);
+        Map<Long, String> cached = new HashMap<>();
+        RecordBatch batch = prepare(found, cached);
+        Map<Long, String> records = Collections.emptyMap();
+        if (!batch.isEmpty()) {
+            records = batch.read(this, prop.getCharset());
+        }
+        return collect(found, cached, records);
+    }
+
+    /**
+     * Search article with exact match for given word, without blocking.
+     * <p>
+     * Index is searched on calling thread, then records of result are read asynchronously;
+     * plain file with AsynchronousFileChannel, and dictzip file with AsynchronousFileChannel
+     * and inflating on executor given by {@link DslDictionaryOptions.Builder#setAsyncExecutor}.
+     * Memory mapped file is copied on calling thread. Articles of result are already read.
+     * @param word search word.
+     * @return future of DslResult object, failed with IOException when I/O error occurred.
+     */
+    public CompletableFuture<DslResult> lookupAsync(final String word) {
+        return readAsync(dictionaryData.lookUp(word));
+    }
+
+    /**
+     * Search article with prefix search for given word, without blocking.
+     * @param word search word.
+     * @return future of DslResult object, failed with IOException when I/O error occurred.
+     * @see #lookupAsync(String)
+     */
+    public CompletableFuture<DslResult> lookupPredictiveAsync(final String word) {
+        return readAsync(dictionaryData.lookUpPredictive(word));
+    }
+
+    /**
+     * Search a page of articles with prefix search for given word, without blocking.
+     * @param word search word.
+     * @param offset number of matches to skip.
+     * @param limit maximum number of articles.
+     * @return future of DslResult object, failed with IOException when I/O error occurred.
+     * @see #lookupAsync(String)
+     * @see #lookupPredictive(String, int, int)
+     */
+    public CompletableFuture<DslResult> lookupPredictiveAsync(final String word, final int offset, final int limit) {
+        return readAsync(dictionaryData.lookUpPredictive(word, offset, limit));
+    }
+
+    private CompletableFuture<DslResult> readAsync(final List<Map.Entry<String, DslEntry>> entries) {
+        List<List<Map.Entry<String, DslEntry>>> found = Collections.singletonList(entries);
+        Map<Long, String> cached = new HashMap<>();
+        RecordBatch batch = prepare(found, cached);
+        CompletableFuture<Map<Long, String>> records;
+        if (batch.isEmpty()) {
+            records = CompletableFuture.completedFuture(Collections.emptyMap());
+        } else {
+            records = batch.readAsync(this, prop.getCharset());
+        }
+        return records.thenApply(r -> collect(found, cached, r).get(0));
+    }
+
+    /**
+     * Make batch of records to read for results.
+     * @param found entries of each result.
+     * @param cached articles found in article cache are put here by offset.
+     * @return batch of headers without headwords in index, and articles not in cache.
+     */
+    private RecordBatch prepare(final List<List<Map.Entry<String, DslEntry>>> found,
+                                final Map<Long, String> cached) {
+        RecordBatch batch = new RecordBatch();
+        for (List<Map.Entry<String, DslEntry>> entries : found) {
+            for (Map.Entry<String, DslEntry> en : entries) {
+                DslEntry entry = en.getValue();
+                if (entry.getHeadWords() == null) {
+                    batch.add(entry.getHeaderOffset(), entry.getHeaderSize());
+                }
+                String article = null;
+                if (articleCache != null && !cached.containsKey(entry.getOffset())) {
+                    article = articleCache.get(entry.getOffset());
+                }
+                if (article != null) {
+                    cached.put(entry.getOffset(), article);
+                } else if (!cached.containsKey(entry.getOffset())) {
+                    batch.add(entry.getOffset(), entry.getSize());
+                }
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Make results from records read by batch.
+     * @param found entries of each result.
+     * @param cached trimmed articles by offset.
+     * @param records records read by batch.
+     * @return DslResult object for each result.
+     */
+    private List<DslResult> collect(final List<List<Map.Entry<String, DslEntry>>> found,
+                                    final Map<Long, String> cached, final Map<Long, String> records) {
+        List<DslResult> results = new ArrayList<>(found.size());
+        for (List<Map.Entry<String, DslEntry>> entries : found) {
+            List<Map.Entry<String, String>> result = new ArrayList<>(entries.size());
+            for (Map.Entry<String, DslEntry> en : entries) {
+                DslEntry entry = en.getValue();
+                String article = cached.get(entry.getOffset());
+                if (article == null) {
+                    article = trimArticle(records.get(entry.getOffset()));
+                    cached.put(entry.getOffset(), article);
+                    if (articleCache != null) {
+                        articleCache.put(entry.getOffset(), article);
+                    }
+                }
+                String headWord;
+                if (entry.getHeadWords() == null) {
+                    headWord = trimArticle(records.get(entry.getHeaderOffset()));
+                } else {
+                    headWord = trimArticle(entry.getHeadWords());
+                }
+                result.add(new AbstractMap.SimpleImmutableEntry<>(headWord, article));
+            }
+            results.add(new DslResult(result));
+        }
+        return results;
     }
 
     /**
@@ -73,11 +254,62 @@ public abstract class DslDictionary {
      * @throws IOException when I/O error occurred
      */
     public DslResult lookupPredictive(final String word) throws IOException {
-        List<Map.Entry<String, String>> result = new ArrayList<>();
-        for (Map.Entry<String, DslEntry> en: dictionaryData.lookUpPredictive(word)) {
-            result.add(new AbstractMap.SimpleImmutableEntry<>(getHeadWord(en.getValue()), getArticle(en.getValue())));
-        }
-        return new DslResult(result);
+        return read(dictionaryData.lookUpPredictive(word));
+    }
+
+    /**
+     * Search a page of articles with prefix search for given word.
+     * <p>
+     * Only articles in the page are read. Next page starts at {@code offset + limit},
+     * and a page with less than limit articles is the last one.
+     * @param word search word.
+     * @param offset number of matches to skip.
+     * @param limit maximum number of articles.
+     * @return DslResult object
+     * @throws IOException when I/O error occurred
+     */
+    public DslResult lookupPredictive(final String word, final int offset, final int limit) throws IOException {
+        return read(dictionaryData.lookUpPredictive(word, offset, limit));
+    }
+
+    /**
+     * Suggest headwords starting with given word.
+     * <p>
+     * Suggestions come from index only, and no article is read.
+     * @param word search word.
+     * @param limit maximum number of suggestions.
+     * @return list of headwords.
+     * @see DictionaryData#suggest(String, int)
+     */
+    public List<String> suggest(final String word, final int limit) {
+        return dictionaryData.suggest(word, limit);
+    }
+
+    /**
+     * Suggest entries starting with given word.
+     * <p>
+     * Each suggestion is a pair of headword and handle of its article, from index only.
+     * Articles of chosen handles can be read later with {@link #getArticles(List)}.
+     * @param word search word.
+     * @param limit maximum number of suggestions.
+     * @return list of headword and article handle.
+     */
+    public List<Map.Entry<String, DslEntry>> suggestEntries(final String word, final int limit) {
+        return dictionaryData.lookUpPredictive(word, 0, limit);
+    }
+
+    /**
+     * Get articles of handles.
+     * @param entries list of headword and article handle, as returned by {@link #suggestEntries(String, int)}.
+     * @return DslResult object
+     * @throws IOException when I/O error occurred
+     */
+    public DslResult getArticles(final List<Map.Entry<String, DslEntry>> entries) throws IOException {
+        return read(entries);
+    }
+
+    private DslResult read(final List<Map.Entry<String, DslEntry>> entries) {
+        return new DslResult(this, entries);
     }
 
     /**
@@ -87,24 +319,220 @@ public abstract class DslDictionary {
      * @throws IOException when I/O error occurred
      */
     protected String getArticle(final DslEntry entry) throws IOException {
-        return trimArticle(getRecord(entry.getOffset(), entry.getSize()));
+        if (articleCache == null) {
+            return trimArticle(getRecord(entry.getOffset(), entry.getSize()));
+        }
+        String article = articleCache.get(entry.getOffset());
+        if (article == null) {
+            article = trimArticle(getRecord(entry.getOffset(), entry.getSize()));
+            articleCache.put(entry.getOffset(), article);
+        }
+        return article;
+    }
+
+    /**
+     * Parse article, and let visitor visit it.
+     * <p>
+     * Unless article cache is enabled, record is decoded into a reused buffer and parsed from it,
+     * without making a string of article. A streaming visitor is called while parsing.
+     * @param entry DslEntry to indicate position and size of article.
+     * @param visitor visitor to render article.
+     * @throws IOException when I/O error occurred.
+     * @throws ParseException when article cannot be parsed.
+     */
+    void parseArticle(final DslEntry entry, final DslVisitor<?> visitor) throws IOException, ParseException {
+        if (articleCache != null) {
+            DslParser.parseArticle(getArticle(entry), visitor);
+            return;
+        }
+        byte[] bytes = new byte[entry.getSize()];
+        read(entry.getOffset(), bytes);
+        ArticleDecoder decoder = decoders.poll();
+        if (decoder == null) {
+            decoder = new ArticleDecoder(prop.getCharset());
+        }
+        try {
+            DslParser.parseArticle(decoder.decode(bytes), visitor);
+        } finally {
+            decoders.offer(decoder);
+        }
+    }
+
+    /**
+     * Counters of article cache.
+     * @return snapshot of counters, all zero when article cache is disabled.
+     */
+    public CacheStats getArticleCacheStats() {
+        if (articleCache == null) {
+            return new CacheStats(0, 0, 0, 0);
+        }
+        return articleCache.stats();
     }
 
     /**
      * Return head word.
+     * <p>
+     * Headwords of card are served from index when entry has them, otherwise header is read.
      * @param entry DslEntry to indicate record.
      * @return article string.
      * @throws IOException
      */
     String getHeadWord(final DslEntry entry) throws IOException {
+        if (entry.getHeadWords() != null) {
+            return trimArticle(entry.getHeadWords());
+        }
         return trimArticle(getRecord(entry.getHeaderOffset(), entry.getHeaderSize()));
     }
 
-    abstract String getRecord(long offset, int size) throws IOException;
+    String getRecord(final long offset, final int size) throws IOException {
+        byte[] bytes = new byte[size];
+        read(offset, bytes);
+        return new String(bytes, prop.getCharset());
+    }
 
+    /**
+     * Read bytes of dictionary.
+     * @param offset offset to start.
+     * @param dst destination array.
+     * @throws IOException when I/O error occurred.
+     */
+    abstract void read(long offset, byte[] dst) throws IOException;
+
+    /**
+     * Read bytes at several offsets in ascending order.
+     * @param offsets offsets to start.
+     * @param dsts destination arrays, one for each offset.
+     * @throws IOException when I/O error occurred.
+     */
+    void read(final long[] offsets, final byte[][] dsts) throws IOException {
+        for (int i = 0; i < offsets.length; i++) {
+            read(offsets[i], dsts[i]);
+        }
+    }
+
+    /**
+     * Read bytes at several offsets asynchronously.
+     * <p>
+     * Default implementation reads on executor of asynchronous look up.
+     * @param offsets offsets to start.
+     * @param dsts destination arrays, one for each offset.
+     * @return future completed when all arrays are filled, or failed with IOException.
+     */
+    CompletableFuture<Void> readAsync(final long[] offsets, final byte[][] dsts) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                read(offsets, dsts);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, asyncExecutor);
+    }
+
+    /**
+     * Executor of asynchronous look up.
+     * @return executor given by options.
+     */
+    Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Normalize line breaks and trim.
+     * <p>
+     * Same as replacing {@link #DELIMITER_PATTERN} with LINE_SEPARATOR and trimming the result,
+     * that is each run of line terminators and following white spaces becomes one line separator,
+     * in one pass without regular expression. An article without change is returned as is.
+     * @param article article text.
+     * @return trimmed text.
+     */
     protected String trimArticle(final String article) {
-        Matcher matcher = DELIMITER_PATTERN.matcher(article);
-        return matcher.replaceAll(LINE_SEPARATOR).trim();
+        if (normalizeLineBreaks(article, null) >= 0) {
+            return article.trim();
+        }
+        char[] out = new char[article.length() * LINE_SEPARATOR.length()];
+        return trim(out, normalizeLineBreaks(article, out)).toString();
+    }
+
+    /**
+     * Copy text with line breaks normalized, without leading white spaces before first line break.
+     * @param text source text.
+     * @param out destination, at least {@code text.length() * LINE_SEPARATOR.length()} long,
+     *            or null to check only whether a line break is changed.
+     * @return number of chars written, or -1 when out is null and a line break is changed.
+     */
+    static int normalizeLineBreaks(final CharSequence text, final char[] out) {
+        int length = text.length();
+        int i = 0;
+        while (i < length && text.charAt(i) <= ' ' && !isLineTerminator(text.charAt(i))) {
+            i++;
+        }
+        int count = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (!isLineTerminator(c)) {
+                if (out != null) {
+                    out[count] = c;
+                }
+                count++;
+                i++;
+                continue;
+            }
+            int runStart = i;
+            while (i < length && isLineTerminator(text.charAt(i))) {
+                i++;
+            }
+            while (i < length && isRegexSpace(text.charAt(i))) {
+                i++;
+            }
+            if (out != null) {
+                LINE_SEPARATOR.getChars(0, LINE_SEPARATOR.length(), out, count);
+            } else if (!isLineSeparator(text, runStart, i)) {
+                return -1;
+            }
+            count += LINE_SEPARATOR.length();
+        }
+        return count;
+    }
+
+    /**
+     * Trim white spaces of normalized text.
+     * @param out normalized text.
+     * @param count number of chars of text.
+     * @return view of trimmed text on the array.
+     */
+    static CharBuffer trim(final char[] out, final int count) {
+        int from = 0;
+        int to = count;
+        while (from < to && out[from] <= ' ') {
+            from++;
+        }
+        while (to > from && out[to - 1] <= ' ') {
+            to--;
+        }
+        return CharBuffer.wrap(out, from, to - from);
+    }
+
+    private static boolean isLineSeparator(final CharSequence text, final int start, final int end) {
+        if (end - start != LINE_SEPARATOR.length()) {
+            return false;
+        }
+        for (int i = 0; i < LINE_SEPARATOR.length(); i++) {
+            if (text.charAt(start + i) != LINE_SEPARATOR.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLineTerminator(final char c) {
+        return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085';
+    }
+
+    /**
+     * White space of regular expression {@code \s}.
+     */
+    private static boolean isRegexSpace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     public String getDictionaryName() {
@@ -136,7 +564,7 @@ public abstract class DslDictionary {
      * @throws IOException raise when I/O error occurred
      */
     public static DslDictionary loadDictionary(@NotNull final Path path) throws IOException {
-        return DslDictionaryLoader.load(path, null, true);
+        return DslDictionaryLoader.load(path, null, true, DslDictionaryOptions.defaults());
     }
 
     /**
@@ -147,7 +575,7 @@ public abstract class DslDictionary {
      * @throws IOException raise when I/O error occurred
      */
     public static DslDictionary loadDictionary(@NotNull final Path path, final Path index) throws IOException {
-        return DslDictionaryLoader.load(path, index, false);
+        return DslDictionaryLoader.load(path, index, false, DslDictionaryOptions.defaults());
     }
 
     /**
@@ -160,6 +588,21 @@ public abstract class DslDictionary {
      */
     public static DslDictionary loadDictionary(@NotNull final Path path, final Path index,
                                                final boolean validateIndexAbspath) throws IOException {
-        return DslDictionaryLoader.load(path, index, validateIndexAbspath);
+        return DslDictionaryLoader.load(path, index, validateIndexAbspath, DslDictionaryOptions.defaults());
+    }
+
+    /**
+     * Loader entry point.
+     * @param path dictionary file.
+     * @param index dictionary index file.
+     * @param validateIndexAbspath true if validate index by compare with full path of generated one, otherwise false.
+     * @param options options to load dictionary.
+     * @return DslDictionary object.
+     * @throws IOException raise when I/O error occurred
+     */
+    public static DslDictionary loadDictionary(@NotNull final Path path, final Path index,
+                                               final boolean validateIndexAbspath,
+                                               @NotNull final DslDictionaryOptions options) throws IOException {
+        return DslDictionaryLoader.load(path, index, validateIndexAbspath, options);
     }
 }
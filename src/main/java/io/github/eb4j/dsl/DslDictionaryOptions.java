@@ -0,0 +1,201 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.dsl;
+
+import io.github.eb4j.dsl.data.EvictionPolicy;
+import io.github.eb4j.dsl.data.IndexMode;
+import io.github.eb4j.dsl.impl.DictZipBlockSource;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Options to load dictionary.
+ * <p>
+ * Create with {@link Builder}; default options are same as
+ * {@link DslDictionary#loadDictionary(java.nio.file.Path)}.
+ */
+public final class DslDictionaryOptions {
+
+    private final IndexMode indexMode;
+    private final boolean memoryMapped;
+    private final long chunkCacheSize;
+    private final long articleCacheSize;
+    private final boolean articleCacheWeightedByLength;
+    private final EvictionPolicy articleCachePolicy;
+    private final Executor asyncExecutor;
+
+    private DslDictionaryOptions(final Builder builder) {
+        indexMode = builder.indexMode;
+        memoryMapped = builder.memoryMapped;
+        chunkCacheSize = builder.chunkCacheSize;
+        articleCacheSize = builder.articleCacheSize;
+        articleCacheWeightedByLength = builder.articleCacheWeightedByLength;
+        articleCachePolicy = builder.articleCachePolicy;
+        asyncExecutor = builder.asyncExecutor;
+    }
+
+    /**
+     * Default options.
+     * @return options object.
+     */
+    public static DslDictionaryOptions defaults() {
+        return new Builder().build();
+    }
+
+    public IndexMode getIndexMode() {
+        return indexMode;
+    }
+
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    public long getChunkCacheSize() {
+        return chunkCacheSize;
+    }
+
+    /**
+     * Capacity of article cache, in entries or in characters.
+     * @return capacity, 0 when article cache is disabled.
+     * @see #isArticleCacheWeightedByLength()
+     */
+    public long getArticleCacheSize() {
+        return articleCacheSize;
+    }
+
+    /**
+     * Whether capacity of article cache is counted in characters of articles.
+     * @return true when capacity is in characters, false when in entries.
+     */
+    public boolean isArticleCacheWeightedByLength() {
+        return articleCacheWeightedByLength;
+    }
+
+    public EvictionPolicy getArticleCachePolicy() {
+        return articleCachePolicy;
+    }
+
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Builder of options.
+     */
+    public static final class Builder {
+        private IndexMode indexMode = IndexMode.STANDARD;
+        private boolean memoryMapped;
+        private long chunkCacheSize = DictZipBlockSource.DEFAULT_CACHE_SIZE;
+        private long articleCacheSize;
+        private boolean articleCacheWeightedByLength;
+        private EvictionPolicy articleCachePolicy = EvictionPolicy.W_TINY_LFU;
+        private Executor asyncExecutor = ForkJoinPool.commonPool();
+
+        /**
+         * How headwords are stored in index. An index file built in other mode is rebuilt.
+         * @param mode index mode, default is STANDARD.
+         * @return this builder.
+         */
+        public Builder setIndexMode(@NotNull final IndexMode mode) {
+            indexMode = mode;
+            return this;
+        }
+
+        /**
+         * Read articles of plain DSL file from memory mapped file instead of file reads.
+         * <p>
+         * Files larger than 1GB are mapped in several segments. It is ignored for dictzip file.
+         * @param mapped true to map file, default is false.
+         * @return this builder.
+         */
+        public Builder setMemoryMapped(final boolean mapped) {
+            memoryMapped = mapped;
+            return this;
+        }
+
+        /**
+         * Capacity of LRU cache of inflated chunks for dictzip file. It is ignored for plain DSL file.
+         * @param bytes capacity in bytes, default is 4MB; 0 disables cache.
+         * @return this builder.
+         */
+        public Builder setChunkCacheSize(final long bytes) {
+            if (bytes < 0) {
+                throw new IllegalArgumentException("Cache size should not be negative.");
+            }
+            chunkCacheSize = bytes;
+            return this;
+        }
+
+        /**
+         * Cache up to given number of decoded and trimmed articles, keyed by their position.
+         * @param entries maximum number of articles, default is 0 that disables cache.
+         * @return this builder.
+         */
+        public Builder setArticleCacheSize(final long entries) {
+            if (entries < 0) {
+                throw new IllegalArgumentException("Cache size should not be negative.");
+            }
+            articleCacheSize = entries;
+            articleCacheWeightedByLength = false;
+            return this;
+        }
+
+        /**
+         * Cache decoded and trimmed articles up to given total length, keyed by their position.
+         * @param chars maximum total characters of articles, 0 disables cache.
+         * @return this builder.
+         */
+        public Builder setArticleCacheMaxChars(final long chars) {
+            if (chars < 0) {
+                throw new IllegalArgumentException("Cache size should not be negative.");
+            }
+            articleCacheSize = chars;
+            articleCacheWeightedByLength = true;
+            return this;
+        }
+
+        /**
+         * Eviction policy of article cache.
+         * @param policy eviction policy, default is W_TINY_LFU.
+         * @return this builder.
+         */
+        public Builder setArticleCachePolicy(@NotNull final EvictionPolicy policy) {
+            articleCachePolicy = policy;
+            return this;
+        }
+
+        /**
+         * Executor of CPU work of asynchronous look up, that is inflating dictzip chunks.
+         * <p>
+         * File reads of asynchronous look up do not use it.
+         * @param executor executor, default is common fork/join pool.
+         * @return this builder.
+         */
+        public Builder setAsyncExecutor(@NotNull final Executor executor) {
+            asyncExecutor = executor;
+            return this;
+        }
+
+        public DslDictionaryOptions build() {
+            return new DslDictionaryOptions(this);
+        }
+    }
+}
@@ -20,28 +20,98 @@ package io.github.eb4j.dsl;
 import io.github.eb4j.dsl.data.DictionaryData;
 import io.github.eb4j.dsl.data.DslDictionaryProperty;
 import io.github.eb4j.dsl.data.DslEntry;
-import org.dict.zip.RandomAccessInputStream;
+import io.github.eb4j.dsl.impl.AsyncFileReader;
+import io.github.eb4j.dsl.impl.BlockSource;
+import io.github.eb4j.dsl.impl.MappedBlockSource;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
 
 
+/**
+ * Dictionary of plain DSL file.
+ * <p>
+ * Records are read with positional reads of FileChannel, which do not move
+ * a shared file pointer, so lookups may run concurrently from several threads.
+ * In memory mapped mode, records are copied from mapped segments of the file
+ * without a system call. Asynchronous look up reads records with AsynchronousFileChannel.
+ */
 public class DslFileDictionary extends DslDictionary {
 
-    private final RandomAccessInputStream ras;
+    /** File channel for positional reads, or null in memory mapped mode. */
+    private final FileChannel channel;
+    /** Mapped file in memory mapped mode, otherwise null. */
+    private final BlockSource mapped;
+    /** Reader of asynchronous look up, or null in memory mapped mode. */
+    private final AsyncFileReader asyncReader;
 
     public DslFileDictionary(final Path path, final DictionaryData<DslEntry> dictionaryData,
                              final DslDictionaryProperty prop) throws IOException {
-        super(dictionaryData, prop);
-        ras = new RandomAccessInputStream(new RandomAccessFile(path.toFile(), "r"));
+        this(path, dictionaryData, prop, DslDictionaryOptions.defaults());
+    }
+
+    /**
+     * Constructor.
+     * @param path dictionary file.
+     * @param dictionaryData index of dictionary.
+     * @param prop dictionary property.
+     * @param options options, such as memory mapped mode.
+     * @throws IOException when I/O error occurred.
+     */
+    public DslFileDictionary(final Path path, final DictionaryData<DslEntry> dictionaryData,
+                             final DslDictionaryProperty prop, final DslDictionaryOptions options)
+            throws IOException {
+        super(dictionaryData, prop, options);
+        if (options.isMemoryMapped()) {
+            channel = null;
+            mapped = new MappedBlockSource(path);
+            asyncReader = null;
+        } else {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            mapped = null;
+            asyncReader = new AsyncFileReader(path);
+        }
+    }
+
+    @Override
+    void read(final long offset, final byte[] dst) throws IOException {
+        if (mapped != null) {
+            mapped.read(offset, dst);
+            return;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(dst);
+        long pos = offset;
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, pos);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of file.");
+            }
+            pos += n;
+        }
     }
 
+    /**
+     * Read ranges with AsynchronousFileChannel; in memory mapped mode, copy them on calling thread.
+     */
     @Override
-    String getRecord(final long offset, final int size) throws IOException {
-        byte[] buf = new byte[size];
-        ras.seek(offset);
-        ras.readFully(buf);
-        return new String(buf, prop.getCharset());
+    CompletableFuture<Void> readAsync(final long[] offsets, final byte[][] dsts) {
+        if (mapped != null) {
+            try {
+                mapped.read(offsets, dsts);
+            } catch (IOException e) {
+                return AsyncFileReader.failedFuture(e);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<?>[] reads = new CompletableFuture<?>[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            reads[i] = asyncReader.read(offsets[i], ByteBuffer.wrap(dsts[i]));
+        }
+        return CompletableFuture.allOf(reads);
     }
 }
@@ -19,33 +19,218 @@
 
 package io.github.eb4j.dsl;
 
+import io.github.eb4j.dsl.data.DslEntry;
 import io.github.eb4j.dsl.visitor.DslVisitor;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
 
+/**
+ * Result of look up.
+ * <p>
+ * A result of dictionary look up holds handles of articles, and reads headword and article
+ * of each entry on first access. {@link #size()} does not read dictionary. Errors while
+ * reading are thrown as UncheckedIOException.
+ */
 public class DslResult {
 
-    private final List<Map.Entry<String, String>> result;
+    /** Dictionary to read, or null when all entries are given. */
+    private final DslDictionary dictionary;
+    private final List<Map.Entry<String, DslEntry>> handles;
+    private final String[] headWords;
+    private final String[] articles;
 
     public DslResult(final List<Map.Entry<String, String>> res) {
-        result = res;
+        dictionary = null;
+        handles = null;
+        headWords = new String[res.size()];
+        articles = new String[res.size()];
+        for (int i = 0; i < res.size(); i++) {
+            headWords[i] = res.get(i).getKey();
+            articles[i] = res.get(i).getValue();
+        }
+    }
+
+    /**
+     * Constructor of result read on demand.
+     * @param dictionary dictionary to read.
+     * @param handles list of key and article handle.
+     */
+    DslResult(final DslDictionary dictionary, final List<Map.Entry<String, DslEntry>> handles) {
+        this.dictionary = dictionary;
+        this.handles = handles;
+        headWords = new String[handles.size()];
+        articles = new String[handles.size()];
+    }
+
+    /**
+     * Number of entries.
+     * @return entry count.
+     */
+    public int size() {
+        return headWords.length;
+    }
+
+    /**
+     * Headword of entry, read on first access.
+     * @param index entry index.
+     * @return headword.
+     */
+    public String getHeadWord(final int index) {
+        String headWord = headWords[index];
+        if (headWord == null) {
+            try {
+                headWord = dictionary.getHeadWord(handles.get(index).getValue());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            headWords[index] = headWord;
+        }
+        return headWord;
     }
 
+    /**
+     * Article text of entry, read on first access.
+     * @param index entry index.
+     * @return article in DSL markup.
+     */
+    public String getArticle(final int index) {
+        String article = articles[index];
+        if (article == null) {
+            try {
+                article = dictionary.getArticle(handles.get(index).getValue());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            articles[index] = article;
+        }
+        return article;
+    }
+
+    /**
+     * Render all entries.
+     * <p>
+     * Entries which article cannot be parsed are skipped. A streaming visitor is called
+     * while each article is parsed, without building a tree of article.
+     * @param filter visitor to render article.
+     * @param <T> type of rendered article.
+     * @return list of headword and rendered article.
+     */
     public <T> List<Map.Entry<String, T>> getEntries(final DslVisitor<T> filter) {
         List<Map.Entry<String, T>> res = new ArrayList<>();
-        for (Map.Entry<String, String> entry: result) {
-            try {
-                DslParser parser = DslParser.createParser(entry.getValue());
-                DslArticle article = parser.DslArticle();
-                article.accept(filter);
-                res.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), filter.getObject()));
-            } catch (ParseException ignored) {
+        for (int i = 0; i < size(); i++) {
+            Map.Entry<String, T> entry = render(i, filter);
+            if (entry != null) {
+                res.add(entry);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Render all entries in parallel on common fork/join pool.
+     * <p>
+     * Entries are split into ranges, and each range is rendered by its own visitor made by
+     * supplier. A streaming visitor renders all entries of its range, as it is reset by start();
+     * otherwise a visitor is made for each entry. Result is in same order as
+     * {@link #getEntries(DslVisitor)}, and entries which article cannot be parsed are skipped.
+     * @param visitors supplier of visitors to render article.
+     * @param <T> type of rendered article.
+     * @return list of headword and rendered article.
+     */
+    public <T> List<Map.Entry<String, T>> getEntries(final Supplier<? extends DslVisitor<T>> visitors) {
+        List<Map.Entry<String, T>> res = new ArrayList<>();
+        if (size() == 0) {
+            return res;
+        }
+        @SuppressWarnings("unchecked")
+        Map.Entry<String, T>[] rendered = new Map.Entry[size()];
+        int ranges = Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, size());
+        int unit = (size() + ranges - 1) / ranges;
+        ForkJoinPool.commonPool().invoke(new RenderTask<>(visitors, rendered, unit, 0, size()));
+        for (Map.Entry<String, T> entry : rendered) {
+            if (entry != null) {
+                res.add(entry);
             }
         }
         return res;
     }
 
+    /**
+     * Render an entry.
+     * @return headword and rendered article, or null when article cannot be parsed.
+     */
+    private <T> Map.Entry<String, T> render(final int index, final DslVisitor<T> filter) {
+        try {
+            if (articles[index] == null) {
+                dictionary.parseArticle(handles.get(index).getValue(), filter);
+            } else {
+                DslParser.parseArticle(articles[index], filter);
+            }
+            return new AbstractMap.SimpleImmutableEntry<>(getHeadWord(index), filter.getObject());
+        } catch (ParseException ignored) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Fork/join task to render a range of entries.
+     * <p>
+     * Each task writes only its own indexes of arrays of result, so no lock is needed.
+     * @param <T> type of rendered article.
+     */
+    private final class RenderTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient Supplier<? extends DslVisitor<T>> visitors;
+        private final transient Map.Entry<String, T>[] rendered;
+        private final int unit;
+        private final int low;
+        private final int high;
+
+        /**
+         * Constructor.
+         * @param visitors supplier of visitors.
+         * @param rendered array of results, indexed same as entries.
+         * @param unit number of entries rendered by a task without splitting.
+         * @param low index of first entry.
+         * @param high index next to last entry.
+         */
+        RenderTask(final Supplier<? extends DslVisitor<T>> visitors, final Map.Entry<String, T>[] rendered,
+                   final int unit, final int low, final int high) {
+            this.visitors = visitors;
+            this.rendered = rendered;
+            this.unit = unit;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low > unit) {
+                int mid = (low + high) >>> 1;
+                RenderTask<T> left = new RenderTask<>(visitors, rendered, unit, low, mid);
+                left.fork();
+                new RenderTask<>(visitors, rendered, unit, mid, high).compute();
+                left.join();
+                return;
+            }
+            DslVisitor<T> visitor = null;
+            for (int i = low; i < high; i++) {
+                if (visitor == null || !visitor.isStreaming()) {
+                    visitor = visitors.get();
+                }
+                rendered[i] = render(i, visitor);
+            }
+        }
+    }
+
 }
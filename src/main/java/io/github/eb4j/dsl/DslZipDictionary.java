@@ -16,32 +16,72 @@
  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
  */package io.github.eb4j.dsl;
 
+import io.github.eb4j.dsl.data.CacheStats;
 import io.github.eb4j.dsl.data.DictionaryData;
 import io.github.eb4j.dsl.data.DslDictionaryProperty;
 import io.github.eb4j.dsl.data.DslEntry;
-import org.dict.zip.DictZipInputStream;
-import org.dict.zip.RandomAccessInputStream;
+import io.github.eb4j.dsl.impl.DictZipBlockSource;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Dictionary of dictzip compressed DSL file.
+ * <p>
+ * Records are read from chunks inflated by DictZipBlockSource, which reads the
+ * file by position and inflates with pooled decoders, so lookups may run
+ * concurrently from several threads. Inflated chunks are cached, so records in
+ * a recently read chunk are served without inflating it again. Asynchronous look up
+ * reads chunks with AsynchronousFileChannel and inflates them on executor of options.
+ */
 public class DslZipDictionary extends DslDictionary {
 
-    private final DictZipInputStream dzis;
+    private final DictZipBlockSource source;
 
     public DslZipDictionary(final Path path, final DictionaryData<DslEntry> dictionaryData,
                             final DslDictionaryProperty prop) throws IOException {
-        super(dictionaryData, prop);
-        dzis = new DictZipInputStream(
-                new RandomAccessInputStream(new RandomAccessFile(path.toFile(), "r")));
+        this(path, dictionaryData, prop, DslDictionaryOptions.defaults());
+    }
+
+    /**
+     * Constructor.
+     * @param path dictionary file.
+     * @param dictionaryData index of dictionary.
+     * @param prop dictionary property.
+     * @param options options, such as capacity of inflated chunk cache.
+     * @throws IOException when I/O error occurred.
+     */
+    public DslZipDictionary(final Path path, final DictionaryData<DslEntry> dictionaryData,
+                            final DslDictionaryProperty prop, final DslDictionaryOptions options)
+            throws IOException {
+        super(dictionaryData, prop, options);
+        source = new DictZipBlockSource(path, options.getChunkCacheSize());
+    }
+
+    /**
+     * Counters of inflated chunk cache.
+     * @return snapshot of counters, weight is in bytes.
+     */
+    public CacheStats getChunkCacheStats() {
+        return source.getCacheStats();
+    }
+
+    @Override
+    void read(final long offset, final byte[] dst) throws IOException {
+        source.read(offset, dst);
+    }
+
+    /**
+     * Read ranges with one cursor, so a chunk shared by neighbouring ranges is inflated once.
+     */
+    @Override
+    void read(final long[] offsets, final byte[][] dsts) throws IOException {
+        source.read(offsets, dsts);
     }
 
     @Override
-    String getRecord(final long offset, final int size) throws IOException {
-        byte[] buf = new byte[size];
-        dzis.seek(offset);
-        dzis.readFully(buf);
-        return new String(buf, prop.getCharset());
+    CompletableFuture<Void> readAsync(final long[] offsets, final byte[][] dsts) {
+        return source.readAsync(offsets, dsts, getAsyncExecutor());
     }
 }
@@ -0,0 +1,114 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2021,2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.dsl;
+
+import io.github.eb4j.dsl.visitor.DslVisitor;
+
+/**
+ * Article without markup, read without parser.
+ * <p>
+ * When an article has no bracket nor backslash, parser sees only text and line breaks. Such an
+ * article is split here into same Text and Newline elements as parser makes: a line break is a
+ * newline with blanks before it when the line has only blanks, otherwise blanks stay in text.
+ */
+final class PlainArticle {
+
+    private PlainArticle() {
+    }
+
+    /**
+     * Whether text has no markup, that is no bracket nor backslash.
+     * @param text article.
+     * @return true when text can be read without parser.
+     */
+    static boolean isPlain(final CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '[' || c == ']' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Build article of text without markup.
+     * @param text article, which should be plain.
+     * @return article.
+     */
+    static DslArticle parse(final CharSequence text) {
+        DslArticle.ElementSequence elements = new DslArticle.ElementSequence();
+        read(text, elements, null);
+        return new DslArticle(elements);
+    }
+
+    /**
+     * Let streaming visitor visit elements of text without markup.
+     * @param text article, which should be plain.
+     * @param visitor visitor.
+     */
+    static void accept(final CharSequence text, final DslVisitor<?> visitor) {
+        visitor.start();
+        read(text, null, visitor);
+        visitor.finish();
+    }
+
+    private static void read(final CharSequence text, final DslArticle.ElementSequence elements,
+                             final DslVisitor<?> visitor) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int end = i;
+            boolean blank = true;
+            while (end < length && !isLineBreak(text.charAt(end))) {
+                if (!isBlank(text.charAt(end))) {
+                    blank = false;
+                }
+                end++;
+            }
+            if (end > i && !(blank && end < length)) {
+                add(new DslArticle.Text(text.subSequence(i, end).toString()), elements, visitor);
+                i = end;
+                continue;
+            }
+            // line break, with blanks of a line only of blanks
+            if (text.charAt(end) == '\r' && end + 1 < length && text.charAt(end + 1) == '\n') {
+                end++;
+            }
+            add(DslArticle.Newline.INSTANCE, elements, visitor);
+            i = end + 1;
+        }
+    }
+
+    private static void add(final DslArticle.DslElement element, final DslArticle.ElementSequence elements,
+                            final DslVisitor<?> visitor) {
+        if (elements != null) {
+            elements.addElement(element);
+        } else {
+            element.accept(visitor);
+        }
+    }
+
+    private static boolean isLineBreak(final char c) {
+        return c == '\r' || c == '\n';
+    }
+
+    private static boolean isBlank(final char c) {
+        return c == ' ' || c == '\t';
+    }
+}
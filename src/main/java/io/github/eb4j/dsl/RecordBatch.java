@@ -0,0 +1,138 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2021,2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.dsl;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Records to be read together.
+ * <p>
+ * Records are sorted by offset, and neighbouring ones, overlapping or separated by
+ * a small gap, are merged into one span read at once. Spans are read in ascending
+ * order, so a dictionary is scanned forward once and a dictzip chunk is inflated once.
+ */
+final class RecordBatch {
+
+    /** Largest gap between records to be read in one span. */
+    static final int MAX_GAP = 4096;
+    /** Largest span to merge records into; a larger record is read alone. */
+    static final int MAX_SPAN = 1 << 20;
+
+    /** Size of record by offset. */
+    private final Map<Long, Integer> records = new HashMap<>();
+
+    /**
+     * Add record.
+     * @param offset offset of record.
+     * @param size size of record.
+     */
+    void add(final long offset, final int size) {
+        records.merge(offset, size, Math::max);
+    }
+
+    boolean isEmpty() {
+        return records.isEmpty();
+    }
+
+    /**
+     * Read and decode all records.
+     * @param dictionary dictionary to read.
+     * @param charset charset of dictionary.
+     * @return decoded record by offset.
+     * @throws IOException when I/O error occurred.
+     */
+    Map<Long, String> read(final DslDictionary dictionary, final Charset charset) throws IOException {
+        Spans spans = new Spans();
+        dictionary.read(spans.positions, spans.buffers);
+        return spans.decode(charset);
+    }
+
+    /**
+     * Read and decode all records asynchronously.
+     * @param dictionary dictionary to read.
+     * @param charset charset of dictionary.
+     * @return future of decoded record by offset.
+     */
+    CompletableFuture<Map<Long, String>> readAsync(final DslDictionary dictionary, final Charset charset) {
+        Spans spans = new Spans();
+        return dictionary.readAsync(spans.positions, spans.buffers).thenApply(v -> spans.decode(charset));
+    }
+
+    /**
+     * Records sorted by offset and merged into spans, with a buffer for each span.
+     */
+    private final class Spans {
+        private final long[] offsets;
+        private final int[] sizes;
+        /** Records from first[s] to first[s + 1] make span s. */
+        private final int[] first;
+        private final long[] positions;
+        private final byte[][] buffers;
+
+        Spans() {
+            int count = 0;
+            offsets = new long[records.size()];
+            for (long offset : records.keySet()) {
+                offsets[count++] = offset;
+            }
+            Arrays.sort(offsets);
+            sizes = new int[count];
+            for (int i = 0; i < count; i++) {
+                sizes[i] = records.get(offsets[i]);
+            }
+            first = new int[count + 1];
+            long[] spanStarts = new long[count];
+            long[] spanEnds = new long[count];
+            int spans = 0;
+            for (int i = 0; i < count; i++) {
+                long end = offsets[i] + sizes[i];
+                if (spans > 0 && offsets[i] <= spanEnds[spans - 1] + MAX_GAP
+                        && Math.max(end, spanEnds[spans - 1]) - spanStarts[spans - 1] <= MAX_SPAN) {
+                    spanEnds[spans - 1] = Math.max(end, spanEnds[spans - 1]);
+                } else {
+                    first[spans] = i;
+                    spanStarts[spans] = offsets[i];
+                    spanEnds[spans] = end;
+                    spans++;
+                }
+            }
+            first[spans] = count;
+            positions = Arrays.copyOf(spanStarts, spans);
+            buffers = new byte[spans][];
+            for (int s = 0; s < spans; s++) {
+                buffers[s] = new byte[(int) (spanEnds[s] - spanStarts[s])];
+            }
+        }
+
+        Map<Long, String> decode(final Charset charset) {
+            Map<Long, String> result = new HashMap<>(offsets.length * 2);
+            for (int s = 0; s < positions.length; s++) {
+                for (int i = first[s]; i < first[s + 1]; i++) {
+                    result.put(offsets[i], new String(buffers[s], (int) (offsets[i] - positions[s]), sizes[i],
+                            charset));
+                }
+            }
+            return result;
+        }
+    }
+}
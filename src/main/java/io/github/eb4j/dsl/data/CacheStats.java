@@ -0,0 +1,73 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.dsl.data;
+
+/**
+ * Snapshot of cache counters.
+ */
+public final class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long weight;
+
+    public CacheStats(final long hitCount, final long missCount, final long evictionCount, final long weight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.weight = weight;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Current weight of cached values, such as bytes or entries depending on cache.
+     * @return weight.
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Ratio of hits to requests.
+     * @return hit rate, 0 when there was no request.
+     */
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        if (requests == 0) {
+            return 0;
+        }
+        return (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount
+                + ", weight=" + weight + "}";
+    }
+}
@@ -19,13 +19,16 @@
 
 package io.github.eb4j.dsl.data;
 
-import org.trie4j.MapTrie;
-import org.trie4j.doublearray.MapDoubleArray;
+import io.github.eb4j.dsl.impl.CaseMarks;
+import io.github.eb4j.dsl.impl.PackedIndex;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.Map.Entry;
 
 /**
@@ -42,14 +45,16 @@ import java.util.Map.Entry;
  */
 public final class DictionaryData<T> {
 
-    private final MapDoubleArray<Object> data;
+    private final PackedIndex data;
 
     /**
      * POJO class to hold dictionary data.
-     * @param trie source Trie object.
+     * <p>
+     * Stored values are DslEntry objects, which are created from packed index on each look up.
+     * @param index source index, on heap or mapped from index file.
      */
-    public DictionaryData(final MapTrie<Object> trie) {
-        data = new MapDoubleArray<>(trie);
+    public DictionaryData(final PackedIndex index) {
+        data = index;
     }
 
     /**
@@ -59,8 +64,8 @@ public final class DictionaryData<T> {
      *            The word to look up
      * @return A list of stored objects matching the given word
      */
-    public List<Entry<String, T>> lookUp(final String word) throws IllegalStateException {
-        return doLookUpWithLowerCase(word, false);
+    public List<Entry<String, T>> lookUp(final String word) {
+        return collect(iterate(word, false), 0, Integer.MAX_VALUE);
     }
 
     /**
@@ -71,53 +76,256 @@ public final class DictionaryData<T> {
      *            The word to look up
      * @return A list of stored objects matching the given word
      */
-    public List<Entry<String, T>> lookUpPredictive(final String word) throws IllegalStateException {
-        return doLookUpWithLowerCase(word, true);
+    public List<Entry<String, T>> lookUpPredictive(final String word) {
+        return collect(iterate(word, true), 0, Integer.MAX_VALUE);
     }
 
-    private List<Entry<String, T>> doLookUpWithLowerCase(final String word, final boolean predictive) {
-        List<Entry<String, T>> result = doLookUp(word, predictive);
-        if (result.isEmpty()) {
-            String lowerWord = word.toLowerCase();
-            result = doLookUp(lowerWord, predictive);
+    /**
+     * Look up a page of predictive completion.
+     * <p>
+     * Results are in same order as {@link #lookUpPredictive(String)}. Index is traversed
+     * only for results in the page, so a short prefix costs as same as a long one.
+     * Next page starts at {@code offset + limit}; a page shorter than limit is the last one.
+     *
+     * @param word
+     *            The word to look up
+     * @param offset number of results to skip.
+     * @param limit maximum number of results.
+     * @return A list of stored objects matching the given word
+     */
+    public List<Entry<String, T>> lookUpPredictive(final String word, final int offset, final int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Negative offset or limit.");
         }
-        return result;
+        return collect(iterate(word, true), offset, limit);
     }
 
-    private List<Entry<String, T>> doLookUp(final String word, final boolean predictive) throws IllegalStateException {
-        if (data == null) {
-            throw new IllegalStateException(
-                    "Object has not been finalized! You must call done() before doing any lookups.");
+    /**
+     * Iterate results of predictive completion lazily.
+     * <p>
+     * Results are in same order as {@link #lookUpPredictive(String)}, and each entry
+     * is unpacked from index when it is iterated.
+     *
+     * @param word
+     *            The word to look up
+     * @return iterator of stored objects matching the given word
+     */
+    public Iterator<Entry<String, T>> iteratePredictive(final String word) {
+        return iterate(word, true);
+    }
+
+    /**
+     * Suggest headwords starting with the given word.
+     * <p>
+     * Only index is read, and no entry is unpacked. In standard mode, suggestions are
+     * keys of index, that are headwords and their lower case forms, in sorted order.
+     * In case folded mode, suggestions are distinct original headwords, in order of
+     * folded keys. As same as predictive look up, when nothing starts with the word,
+     * words starting with its lower case are suggested, and in case folded mode,
+     * headwords in same case as the word are preferred.
+     *
+     * @param word
+     *            The word to look up
+     * @param limit maximum number of suggestions.
+     * @return list of headwords.
+     */
+    public List<String> suggest(final String word, final int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative limit.");
         }
-        List<Entry<String, T>> result = new ArrayList<>();
-        if (predictive) {
-            data.predictiveSearch(word).forEach(w -> get(w, data.get(w), result));
-        } else {
-            get(word, data.get(word), result);
+        List<String> result = new ArrayList<>();
+        if (data.getMode() == IndexMode.CASE_FOLDED) {
+            PostingIterator it = iterateFolded(word, true);
+            Set<String> seen = new HashSet<>();
+            while (result.size() < limit && it.hasNext()) {
+                String headWord = it.nextHeadWord();
+                if (seen.add(headWord)) {
+                    result.add(headWord);
+                }
+            }
+            return result;
+        }
+        int[] range = data.findPrefix(word);
+        if (range[0] == range[1]) {
+            range = data.findPrefix(word.toLowerCase());
         }
+        for (int id = range[0]; id < range[1] && result.size() < limit; id++) {
+            result.add(data.getKey(id));
+        }
+        return result;
+    }
 
+    private List<Entry<String, T>> collect(final PostingIterator it, final int offset, final int limit) {
+        it.skip(offset);
+        List<Entry<String, T>> result = new ArrayList<>();
+        while (result.size() < limit && it.hasNext()) {
+            result.add(it.next());
+        }
         return result;
     }
 
+    private PostingIterator iterate(final String word, final boolean predictive) {
+        if (data.getMode() == IndexMode.CASE_FOLDED) {
+            return iterateFolded(word, predictive);
+        }
+        // every key has postings, so an empty key range means no result
+        int[] range = range(word, predictive);
+        if (range[0] == range[1]) {
+            String lowerWord = word.toLowerCase();
+            range = range(lowerWord, predictive);
+        }
+        return new PostingIterator(range, null, predictive);
+    }
+
     /**
-     * Unpack the given stored object (singular, or array) into the given
-     * collection.
-     *
-     * @param key
-     * @param value
-     * @param into
+     * Look up case folded index.
+     * <p>
+     * Keys under folded word are traversed once. When the word has upper case letters,
+     * entries of which headword is the word, or starts with the word in predictive mode,
+     * are returned if any, otherwise all entries found. Keys of result are original headwords.
      */
+    private PostingIterator iterateFolded(final String word, final boolean predictive) {
+        String folded = CaseMarks.fold(word);
+        int[] range = range(folded, predictive);
+        if (!folded.equals(word)) {
+            PostingIterator exact = new PostingIterator(range, word, predictive);
+            if (exact.hasNext()) {
+                return exact;
+            }
+        }
+        return new PostingIterator(range, null, predictive);
+    }
+
+    private int[] range(final String key, final boolean predictive) {
+        if (predictive) {
+            return data.findPrefix(key);
+        }
+        int id = data.find(key);
+        if (id < 0) {
+            return new int[] {0, 0};
+        }
+        return new int[] {id, id + 1};
+    }
+
     @SuppressWarnings("unchecked")
-    private <U> void get(final U key, final Object value, final Collection<Entry<U, T>> into) {
-        if (value == null) {
-            return;
+    private Entry<String, T> newEntry(final String key, final int en) {
+        DslEntry entry = new DslEntry(data.getHeaderOffset(en), data.getHeaderSize(en), data.getOffset(en),
+                data.getSize(en), data.getCardHeadWords(en));
+        return new AbstractMap.SimpleImmutableEntry<>(key, (T) entry);
+    }
+
+    /**
+     * Iterator over postings of a key range.
+     * <p>
+     * Postings of consecutive keys are consecutive, so the iterator walks one span
+     * of postings and moves to next key when a posting of the key ends.
+     */
+    private final class PostingIterator implements Iterator<Entry<String, T>> {
+        private final int lastId;
+        private final String caseWord;
+        private final boolean predictive;
+        private int id;
+        private int posting;
+        private final int end;
+        private String key;
+        /** Headword of next result, or null when not looked ahead. */
+        private String nextHeadWord;
+        private int nextEntry;
+
+        /**
+         * Constructor.
+         * @param range first key id and last key id + 1.
+         * @param caseWord when not null, only entries of which headword is, or starts with, this word.
+         * @param predictive whether headword should start with caseWord, or be equal.
+         */
+        PostingIterator(final int[] range, final String caseWord, final boolean predictive) {
+            this.caseWord = caseWord;
+            this.predictive = predictive;
+            id = range[0];
+            lastId = range[1];
+            if (id < lastId) {
+                posting = data.postingStart(id);
+                end = data.postingEnd(lastId - 1);
+            } else {
+                end = 0;
+            }
+        }
+
+        /**
+         * Skip results.
+         * @param count number of results to skip.
+         */
+        void skip(final int count) {
+            int remaining = count;
+            if (nextHeadWord != null && remaining > 0) {
+                nextHeadWord = null;
+                remaining--;
+            }
+            if (caseWord != null) {
+                for (int i = 0; i < remaining && hasNext(); i++) {
+                    next();
+                }
+                return;
+            }
+            posting = (int) Math.min(end, (long) posting + remaining);
+            // find key of posting
+            int low = id;
+            int high = lastId - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (data.postingStart(mid) <= posting) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (low != id) {
+                id = low;
+                key = null;
+            }
         }
-        if (value instanceof Object[]) {
-            for (Object o : (Object[]) value) {
-                into.add(new AbstractMap.SimpleImmutableEntry<>(key, (T) o));
+
+        @Override
+        public boolean hasNext() {
+            while (nextHeadWord == null && posting < end) {
+                while (posting >= data.postingEnd(id)) {
+                    id++;
+                    key = null;
+                }
+                if (key == null) {
+                    key = data.getKey(id);
+                }
+                int en = data.getEntry(posting++);
+                String headWord = data.getHeadWord(key, en);
+                if (caseWord == null || headWord.equals(caseWord) || predictive && headWord.startsWith(caseWord)) {
+                    nextHeadWord = headWord;
+                    nextEntry = en;
+                }
+            }
+            return nextHeadWord != null;
+        }
+
+        @Override
+        public Entry<String, T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, T> result = newEntry(nextHeadWord, nextEntry);
+            nextHeadWord = null;
+            return result;
+        }
+
+        /**
+         * Next headword, without unpacking its entry.
+         * @return headword, or key in standard mode.
+         */
+        String nextHeadWord() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
-        } else {
-            into.add(new AbstractMap.SimpleImmutableEntry<>(key, (T) value));
+            String result = nextHeadWord;
+            nextHeadWord = null;
+            return result;
         }
     }
 
@@ -127,6 +335,6 @@ public final class DictionaryData<T> {
      * @return The number of stored keys
      */
     public int size() {
-        return data.size();
+        return data.keyCount();
     }
 }
@@ -18,73 +18,46 @@
 
 package io.github.eb4j.dsl.data;
 
+import io.github.eb4j.dsl.impl.EntryTable;
+import io.github.eb4j.dsl.impl.PackedIndex;
 import io.github.eb4j.dsl.index.DslIndex;
-import org.trie4j.MapTrie;
-import org.trie4j.patricia.MapPatriciaTrie;
 
 import java.util.List;
 
 public final class DictionaryDataBuilder<T> {
 
+    private final IndexMode mode;
+
     /**
      * Builder factory for POJO class DictionaryData.
      */
     public DictionaryDataBuilder() {
+        this(IndexMode.STANDARD);
     }
 
     /**
-     * build DictionaryData POJO.
-     * @param entries List of ProtoBuf defined entry
-     * @return DictionaryData immutable object.
+     * Builder factory for POJO class DictionaryData.
+     * @param mode how headwords are stored.
      */
-    public DictionaryData<T> build(final List<DslIndex.Entry> entries) {
-        MapTrie<Object> mapPatriciaTrie = new MapPatriciaTrie<>();
-        for (DslIndex.Entry en: entries) {
-            doAdd(mapPatriciaTrie, en.getHeadWord(), en.getOffset(), en.getSize(),
-                    en.getHeaderOffset(), en.getHeaderSize());
-            String lowerKey = en.getHeadWord().toLowerCase();
-            if (!en.getHeadWord().equals(lowerKey)) {
-                doAdd(mapPatriciaTrie, lowerKey, en.getOffset(), en.getSize(),
-                        en.getHeaderOffset(), en.getHeaderSize());
-            }
-        }
-        return new DictionaryData<>(mapPatriciaTrie);
+    public DictionaryDataBuilder(final IndexMode mode) {
+        this.mode = mode;
     }
 
     /**
-     * Do the actual storing of the value. Most values are going to be singular,
-     * but dictionaries may store multiple definitions for the same key, so in
-     * that case we store the values in an array.
-     *
-     * @param key
+     * build DictionaryData POJO.
+     * <p>
+     * Each headword is stored as is, and also in lower case when it is different,
+     * or only case folded in {@link IndexMode#CASE_FOLDED} mode.
+     * Dictionaries may store multiple definitions for the same key, and those
+     * are kept in the order of entries.
+     * @param entries List of ProtoBuf defined entry
+     * @return DictionaryData immutable object.
      */
-    private void doAdd(final MapTrie<Object> mapPatriciaTrie, final String key, final long offset, final int size,
-                       final long headerOffiset, final int headerSize) {
-        Object stored = mapPatriciaTrie.get(key);
-        if (stored == null) {
-            mapPatriciaTrie.insert(key, new DslEntry(headerOffiset, headerSize, offset, size));
-        } else {
-            if (stored instanceof Object[]) {
-                stored = extendArray((Object[]) stored, new DslEntry(headerOffiset, headerSize, offset, size));
-            } else {
-                stored = new Object[] {stored, new DslEntry(headerOffiset, headerSize, offset, size)};
-            }
-            mapPatriciaTrie.put(key, stored);
+    public DictionaryData<T> build(final List<DslIndex.Entry> entries) {
+        EntryTable table = new EntryTable(mode);
+        for (DslIndex.Entry en : entries) {
+            table.add(en.getHeadWord(), en.getHeaderOffset(), en.getHeaderSize(), en.getOffset(), en.getSize());
         }
+        return new DictionaryData<>(PackedIndex.build(table));
     }
-
-    /**
-     * Return the given array with the given value appended to it.
-     *
-     * @param array
-     * @param value
-     * @return
-     */
-    Object[] extendArray(final Object[] array, final Object value) {
-        Object[] newArray = new Object[array.length + 1];
-        System.arraycopy(array, 0, newArray, 0, array.length);
-        newArray[newArray.length - 1] = value;
-        return newArray;
-    }
-
 }
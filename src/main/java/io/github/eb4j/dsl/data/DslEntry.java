@@ -18,17 +18,34 @@
 
 package io.github.eb4j.dsl.data;
 
+import org.jetbrains.annotations.Nullable;
+
 public class DslEntry {
     private final long headerOffset;
     private final int headerSize;
     private final long offset;
     private final int size;
+    private final String headWords;
 
     public DslEntry(final long headerOffset, final int headerSize, final long offset, final int size) {
+        this(headerOffset, headerSize, offset, size, null);
+    }
+
+    /**
+     * Constructor.
+     * @param headerOffset offset of header in dictionary.
+     * @param headerSize size of header.
+     * @param offset offset of article in dictionary.
+     * @param size size of article.
+     * @param headWords headword lines of card joined by LF, or null to read them from header.
+     */
+    public DslEntry(final long headerOffset, final int headerSize, final long offset, final int size,
+                    @Nullable final String headWords) {
         this.headerOffset = headerOffset;
         this.headerSize = headerSize;
         this.offset = offset;
         this.size = size;
+        this.headWords = headWords;
     }
 
     public long getHeaderOffset() {
@@ -47,6 +64,15 @@ public class DslEntry {
         return size;
     }
 
+    /**
+     * Headword lines of card, served from index.
+     * @return headwords joined by LF, or null when they should be read from header.
+     */
+    @Nullable
+    public String getHeadWords() {
+        return headWords;
+    }
+
     @Override
     @SuppressWarnings("NeedBraces")
     public boolean equals(final Object o) {
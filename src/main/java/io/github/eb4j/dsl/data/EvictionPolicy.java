@@ -0,0 +1,34 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.dsl.data;
+
+/**
+ * How a bounded cache chooses entries to evict.
+ */
+public enum EvictionPolicy {
+    /**
+     * Least recently used entry is evicted.
+     */
+    LRU,
+    /**
+     * Window TinyLFU: new entries enter a small LRU window, and are admitted to the main
+     * segmented LRU area only when they are estimated to be used more often than the entry
+     * to be evicted. Frequent entries survive scans of rarely used ones.
+     */
+    W_TINY_LFU
+}
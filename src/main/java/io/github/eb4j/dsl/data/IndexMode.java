@@ -0,0 +1,36 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.dsl.data;
+
+/**
+ * How headwords are stored in index.
+ */
+public enum IndexMode {
+    /**
+     * Each headword is stored as is, and also in lower case when it is different.
+     * A look up tries the word, then the word in lower case.
+     */
+    STANDARD,
+    /**
+     * Each headword is stored once, case folded, with a marker of its original case.
+     * A look up folds the word and traverses the index once; entries of exactly the
+     * same case are returned when there are, otherwise all entries of the folded key.
+     */
+    CASE_FOLDED
+}
@@ -0,0 +1,136 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2021,2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.dsl.impl;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Positional reads of a file with AsynchronousFileChannel.
+ * <p>
+ * The channel is opened on first read, so a dictionary used only synchronously does not
+ * open it. Reads complete on a thread of default channel group, and do not block caller.
+ */
+public final class AsyncFileReader implements Closeable {
+
+    private final Path path;
+    private AsynchronousFileChannel channel;
+    private boolean closed;
+
+    public AsyncFileReader(final Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Read bytes until buffer is full.
+     * @param position position in file to start.
+     * @param dst destination buffer.
+     * @return future completed when buffer is full, or failed with EOFException
+     * when file ends before.
+     */
+    public CompletableFuture<Void> read(final long position, final ByteBuffer dst) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!dst.hasRemaining()) {
+            future.complete(null);
+            return future;
+        }
+        try {
+            AsynchronousFileChannel ch = getChannel();
+            ch.read(dst, position, position, new ReadHandler(ch, dst, future));
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private synchronized AsynchronousFileChannel getChannel() throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        if (channel == null) {
+            channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+        }
+        return channel;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Future failed with exception.
+     * @param e cause.
+     * @param <T> type of result.
+     * @return failed future.
+     */
+    public static <T> CompletableFuture<T> failedFuture(final Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    /**
+     * Continue reading from where last read ended until buffer is full.
+     */
+    private static final class ReadHandler implements CompletionHandler<Integer, Long> {
+        private final AsynchronousFileChannel channel;
+        private final ByteBuffer dst;
+        private final CompletableFuture<Void> future;
+
+        ReadHandler(final AsynchronousFileChannel channel, final ByteBuffer dst, final CompletableFuture<Void> future) {
+            this.channel = channel;
+            this.dst = dst;
+            this.future = future;
+        }
+
+        @Override
+        public void completed(final Integer n, final Long position) {
+            if (n < 0) {
+                future.completeExceptionally(new EOFException("Unexpected end of file."));
+                return;
+            }
+            if (!dst.hasRemaining()) {
+                future.complete(null);
+                return;
+            }
+            long next = position + n;
+            try {
+                channel.read(dst, next, next, this);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void failed(final Throwable exc, final Long position) {
+            future.completeExceptionally(exc);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.dsl.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Byte access to BlockSource by absolute position.
+ * <p>
+ * The cursor keeps the current and the previous block, so short look-back
+ * across a block boundary does not load a block again.
+ * A cursor is not thread-safe; use one cursor per thread.
+ */
+final class BlockCursor {
+
+    private final BlockSource source;
+    private final long blockSize;
+    private final long length;
+
+    private ByteBuffer block;
+    private long blockStart;
+    private int blockLimit;
+    private ByteBuffer prevBlock;
+    private long prevStart = -1;
+
+    BlockCursor(final BlockSource source) {
+        this.source = source;
+        blockSize = source.blockSize();
+        length = source.length();
+        blockStart = -1;
+    }
+
+    long length() {
+        return length;
+    }
+
+    /**
+     * Get byte at position.
+     * @param pos position.
+     * @return unsigned byte value, or -1 when position is out of range.
+     * @throws IOException when I/O error occurred.
+     */
+    int get(final long pos) throws IOException {
+        long rel = pos - blockStart;
+        if (rel < 0 || rel >= blockLimit) {
+            if (!load(pos)) {
+                return -1;
+            }
+            rel = pos - blockStart;
+        }
+        return block.get((int) rel) & 0xff;
+    }
+
+    /**
+     * Search a byte value.
+     * @param value byte to search.
+     * @param from position to start.
+     * @return position of value, or -1 when not found.
+     * @throws IOException when I/O error occurred.
+     */
+    long indexOf(final byte value, final long from) throws IOException {
+        long pos = from;
+        while (load(pos)) {
+            ByteBuffer buf = block;
+            int limit = blockLimit;
+            for (int i = (int) (pos - blockStart); i < limit; i++) {
+                if (buf.get(i) == value) {
+                    return blockStart + i;
+                }
+            }
+            pos = blockStart + limit;
+        }
+        return -1;
+    }
+
+    /**
+     * Check bytes at position.
+     * @param pos position.
+     * @param pattern expected bytes.
+     * @return true when all bytes are available and equal to pattern.
+     * @throws IOException when I/O error occurred.
+     */
+    boolean matches(final long pos, final byte[] pattern) throws IOException {
+        for (int i = 0; i < pattern.length; i++) {
+            if (get(pos + i) != (pattern[i] & 0xff)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy bytes into array.
+     * @param pos position to start.
+     * @param dst destination array.
+     * @throws IOException when I/O error occurred or range exceeds the end.
+     */
+    void read(final long pos, final byte[] dst) throws IOException {
+        int off = 0;
+        while (off < dst.length) {
+            if (!load(pos + off)) {
+                throw new IOException("Unexpected end of file.");
+            }
+            int rel = (int) (pos + off - blockStart);
+            int n = Math.min(dst.length - off, blockLimit - rel);
+            ByteBuffer buf = block.duplicate();
+            buf.position(rel);
+            buf.get(dst, off, n);
+            off += n;
+        }
+    }
+
+    /**
+     * Make block holding position current.
+     * @return false when position is out of range.
+     */
+    private boolean load(final long pos) throws IOException {
+        if (pos < 0 || pos >= length) {
+            return false;
+        }
+        long rel = pos - blockStart;
+        if (rel >= 0 && rel < blockLimit) {
+            return true;
+        }
+        long start = pos / blockSize * blockSize;
+        ByteBuffer buf;
+        if (start == prevStart) {
+            buf = prevBlock;
+        } else {
+            buf = source.getBlock((int) (pos / blockSize));
+            if (buf == null) {
+                return false;
+            }
+        }
+        prevBlock = block;
+        prevStart = blockStart;
+        block = buf;
+        blockStart = start;
+        blockLimit = buf.limit();
+        return pos - start < blockLimit;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.dsl.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Random access to dictionary content as a sequence of large blocks.
+ * <p>
+ * Block {@code i} covers uncompressed bytes starting at {@code i * blockSize()}.
+ * Every block but the last has exactly {@code blockSize()} bytes.
+ * Returned buffers should be accessed with absolute get methods only.
+ */
+public interface BlockSource extends Closeable {
+
+    /**
+     * Nominal size of a block.
+     * @return size in bytes.
+     */
+    int blockSize();
+
+    /**
+     * Number of blocks.
+     * @return block count.
+     */
+    int blockCount();
+
+    /**
+     * Total length of uncompressed content.
+     * @return length in bytes.
+     */
+    long length();
+
+    /**
+     * Get content of block.
+     * @param index block index.
+     * @return buffer holding the block, or null when index is out of range.
+     * @throws IOException when I/O error occurred.
+     */
+    ByteBuffer getBlock(int index) throws IOException;
+
+    /**
+     * Copy content at position into array.
+     * <p>
+     * Bytes may span several blocks. Each call uses its own cursor, so it is
+     * safe to call from several threads when {@link #getBlock(int)} is.
+     * @param position position to start.
+     * @param dst destination array.
+     * @throws IOException when I/O error occurred or range exceeds the end.
+     */
+    default void read(final long position, final byte[] dst) throws IOException {
+        new BlockCursor(this).read(position, dst);
+    }
+
+    /**
+     * Copy content at several positions into arrays with one cursor.
+     * <p>
+     * When positions are in ascending order, a block shared by neighbouring ranges is
+     * fetched only once.
+     * @param positions positions to start.
+     * @param dsts destination arrays, one for each position.
+     * @throws IOException when I/O error occurred or range exceeds the end.
+     */
+    default void read(final long[] positions, final byte[][] dsts) throws IOException {
+        BlockCursor cursor = new BlockCursor(this);
+        for (int i = 0; i < positions.length; i++) {
+            cursor.read(positions[i], dsts[i]);
+        }
+    }
+
+    /**
+     * Open block source for dictionary file.
+     * @param path dictionary file.
+     * @param isDictZip true when file is compressed with dictzip.
+     * @return BlockSource object.
+     * @throws IOException when I/O error occurred.
+     */
+    static BlockSource open(final Path path, final boolean isDictZip) throws IOException {
+        if (isDictZip) {
+            return new DictZipBlockSource(path);
+        }
+        return new MappedBlockSource(path);
+    }
+}
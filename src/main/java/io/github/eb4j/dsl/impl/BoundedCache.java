@@ -0,0 +1,206 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.dsl.impl;
+
+import io.github.eb4j.dsl.data.CacheStats;
+import io.github.eb4j.dsl.data.EvictionPolicy;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cache keyed by position and bounded by total weight of values.
+ * <p>
+ * The cache is split into segments by key, each one under its own lock, so concurrent
+ * readers of different keys rarely wait for each other. Each segment evicts entries by
+ * the eviction policy when its share of the capacity is exceeded.
+ * @param <V> type of value.
+ */
+public final class BoundedCache<V> {
+
+    private static final int MAX_SEGMENTS = 16;
+    /** Fewest entries a segment should hold, so that splitting keeps eviction order meaningful. */
+    private static final int MIN_SEGMENT_ENTRIES = 8;
+
+    private final Segment<V>[] segments;
+    private final ToIntFunction<V> weigher;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor.
+     * @param policy eviction policy.
+     * @param capacity maximum total weight, 0 to disable cache.
+     * @param expectedEntries estimated number of entries at capacity.
+     * @param weigher weight of a value, such as 1 to bound number of entries, or its length.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BoundedCache(final EvictionPolicy policy, final long capacity, final long expectedEntries,
+                        final ToIntFunction<V> weigher) {
+        this.weigher = weigher;
+        int count = 1;
+        while (count < MAX_SEGMENTS && expectedEntries / (count * 2L) >= MIN_SEGMENT_ENTRIES) {
+            count *= 2;
+        }
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            if (policy == EvictionPolicy.W_TINY_LFU) {
+                segments[i] = new TinyLfuSegment<>(capacity / count, expectedEntries / count);
+            } else {
+                segments[i] = new LruSegment<>(capacity / count);
+            }
+        }
+    }
+
+    /**
+     * Get cached value.
+     * @param key key.
+     * @return value, or null when it is not cached.
+     */
+    public V get(final long key) {
+        V value = segment(key).get(key);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Add value to cache. A value heavier than a segment is not cached.
+     * @param key key.
+     * @param value value.
+     */
+    public void put(final long key, final V value) {
+        evictions.add(segment(key).put(key, value, weigher.applyAsInt(value)));
+    }
+
+    /**
+     * Remove all values.
+     */
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Counters of cache.
+     * @return snapshot of counters.
+     */
+    public CacheStats stats() {
+        long weight = 0;
+        for (Segment<V> segment : segments) {
+            weight += segment.weight();
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), weight);
+    }
+
+    private Segment<V> segment(final long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return segments[(int) (h >>> 32) & (segments.length - 1)];
+    }
+
+    /**
+     * Part of cache under one lock.
+     * @param <V> type of value.
+     */
+    interface Segment<V> {
+        V get(long key);
+
+        /**
+         * Put value and evict entries over capacity.
+         * @return number of evicted entries.
+         */
+        int put(long key, V value, int weight);
+
+        void clear();
+
+        long weight();
+    }
+
+    /**
+     * Segment with LRU eviction, an access ordered LinkedHashMap.
+     * @param <V> type of value.
+     */
+    private static final class LruSegment<V> implements Segment<V> {
+        private final long capacity;
+        private final LinkedHashMap<Long, Weighted<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+
+        LruSegment(final long capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public synchronized V get(final long key) {
+            Weighted<V> entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            return entry.value;
+        }
+
+        @Override
+        public synchronized int put(final long key, final V value, final int valueWeight) {
+            if (valueWeight > capacity) {
+                return 0;
+            }
+            Weighted<V> old = map.put(key, new Weighted<>(value, valueWeight));
+            if (old != null) {
+                weight -= old.weight;
+            }
+            weight += valueWeight;
+            int evicted = 0;
+            Iterator<Map.Entry<Long, Weighted<V>>> it = map.entrySet().iterator();
+            while (weight > capacity) {
+                Map.Entry<Long, Weighted<V>> eldest = it.next();
+                weight -= eldest.getValue().weight;
+                it.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+
+        @Override
+        public synchronized void clear() {
+            map.clear();
+            weight = 0;
+        }
+
+        @Override
+        public synchronized long weight() {
+            return weight;
+        }
+    }
+
+    private static final class Weighted<V> {
+        private final V value;
+        private final int weight;
+
+        Weighted(final V value, final int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
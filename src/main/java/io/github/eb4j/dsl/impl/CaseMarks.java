@@ -0,0 +1,163 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.dsl.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Original case of headwords in case folded index.
+ * <p>
+ * Keys are folded code point by code point, by upper case then lower case, so
+ * folding never depends on context nor changes the number of code points, and
+ * a headword starting with a prefix is folded to a key starting with the folded prefix.
+ * <p>
+ * Each entry has a mark. Zero means the headword is same as its key. A positive mark
+ * is a bit set of code points, in first 31 ones, to be changed to upper case. A negative
+ * mark {@code -(v + 1)} refers to a variant, the headword itself in UTF-8, for headwords
+ * which upper case of key does not restore.
+ */
+public final class CaseMarks {
+
+    /** Mark of a headword which needs a variant; replaced by variant reference on build. */
+    static final int VARIANT = -1;
+
+    private static final int MASK_BITS = 31;
+
+    private final IntBuffer marks;
+    private final IntBuffer variantOffsets;
+    private final ByteBuffer variantBytes;
+
+    CaseMarks(final IntBuffer marks, final IntBuffer variantOffsets, final ByteBuffer variantBytes) {
+        this.marks = marks;
+        this.variantOffsets = variantOffsets;
+        this.variantBytes = variantBytes;
+    }
+
+    IntBuffer getMarks() {
+        return marks;
+    }
+
+    IntBuffer getVariantOffsets() {
+        return variantOffsets;
+    }
+
+    ByteBuffer getVariantBytes() {
+        return variantBytes;
+    }
+
+    /**
+     * Restore headword of entry.
+     * @param key folded key of entry.
+     * @param entry entry index.
+     * @return original headword.
+     */
+    String restore(final String key, final int entry) {
+        int mark = marks.get(entry);
+        if (mark == 0) {
+            return key;
+        }
+        if (mark < 0) {
+            int variant = -mark - 1;
+            int start = variantOffsets.get(variant);
+            byte[] bytes = new byte[variantOffsets.get(variant + 1) - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = variantBytes.get(start + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        StringBuilder sb = new StringBuilder(key.length());
+        int index = 0;
+        for (int i = 0; i < key.length(); index++) {
+            int cp = key.codePointAt(i);
+            if (index < MASK_BITS && (mark & (1 << index)) != 0) {
+                sb.appendCodePoint(Character.toUpperCase(cp));
+            } else {
+                sb.appendCodePoint(cp);
+            }
+            i += Character.charCount(cp);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Fold case of string.
+     * @param s string.
+     * @return folded string.
+     */
+    public static String fold(final String s) {
+        int i = 0;
+        while (i < s.length()) {
+            int cp = s.codePointAt(i);
+            if (foldCodePoint(cp) != cp) {
+                break;
+            }
+            i += Character.charCount(cp);
+        }
+        if (i == s.length()) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        sb.append(s, 0, i);
+        while (i < s.length()) {
+            int cp = s.codePointAt(i);
+            sb.appendCodePoint(foldCodePoint(cp));
+            i += Character.charCount(cp);
+        }
+        return sb.toString();
+    }
+
+    private static int foldCodePoint(final int cp) {
+        return Character.toLowerCase(Character.toUpperCase(cp));
+    }
+
+    /**
+     * Compute mark of headword.
+     * @param headWord original headword.
+     * @param key folded headword.
+     * @return 0 when same, bit set of upper case code points, or VARIANT.
+     */
+    static int mark(final String headWord, final String key) {
+        if (headWord.equals(key)) {
+            return 0;
+        }
+        int mark = 0;
+        int index = 0;
+        int i = 0;
+        int j = 0;
+        while (i < headWord.length() && j < key.length()) {
+            int original = headWord.codePointAt(i);
+            int folded = key.codePointAt(j);
+            if (original != folded) {
+                if (index >= MASK_BITS || Character.toUpperCase(folded) != original) {
+                    return VARIANT;
+                }
+                mark |= 1 << index;
+            }
+            i += Character.charCount(original);
+            j += Character.charCount(folded);
+            index++;
+        }
+        if (i != headWord.length() || j != key.length()) {
+            return VARIANT;
+        }
+        return mark;
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.dsl.impl;
+
+import io.github.eb4j.dsl.data.CacheStats;
+import io.github.eb4j.dsl.data.EvictionPolicy;
+import org.dict.zip.DictZipHeader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Block source of dictzip file.
+ * <p>
+ * A block is one dictzip chunk. Chunks are compressed independently,
+ * so each one is inflated on its own from positional reads of the file.
+ * It is safe to call {@link #getBlock(int)} from several threads; inflaters
+ * are pooled, so concurrent readers do not share a decoder nor allocate one per chunk.
+ * Inflated chunks are kept in a size bounded LRU cache, so records near each other,
+ * such as predictive results, or header detection followed by scanning, inflate
+ * a chunk only once. {@link #readAsync(long[], byte[][], Executor)} reads compressed
+ * chunks with AsynchronousFileChannel and inflates them on given executor.
+ */
+public final class DictZipBlockSource implements BlockSource {
+
+    /** Default capacity of chunk cache in bytes. */
+    public static final long DEFAULT_CACHE_SIZE = 4L << 20;
+
+    /** Size of gzip trailer, CRC32 and ISIZE. */
+    private static final int TRAILER_SIZE = 8;
+
+    private final FileChannel channel;
+    private final int chunkLength;
+    private final int chunkCount;
+    private final long[] positions;
+    private final long length;
+    private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+    private final BoundedCache<byte[]> cache;
+    private final AsyncFileReader asyncReader;
+
+    public DictZipBlockSource(final Path path) throws IOException {
+        this(path, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param path dictzip file.
+     * @param cacheSize capacity of chunk cache in bytes, 0 to disable cache.
+     * @throws IOException when I/O error occurred or file is not dictzip.
+     */
+    public DictZipBlockSource(final Path path, final long cacheSize) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            DictZipHeader header = DictZipHeader.readHeader(Channels.newInputStream(channel), new CRC32());
+            chunkLength = header.getChunkLength();
+            chunkCount = header.getChunkCount();
+            long fileSize = channel.size();
+            positions = new long[chunkCount + 1];
+            for (int i = 0; i < chunkCount; i++) {
+                positions[i] = header.getPosition((long) i * chunkLength);
+            }
+            positions[chunkCount] = fileSize - TRAILER_SIZE;
+            length = readLength(fileSize);
+            cache = new BoundedCache<>(EvictionPolicy.LRU, cacheSize, cacheSize / Math.max(1, chunkLength),
+                    data -> data.length);
+            asyncReader = new AsyncFileReader(path);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Calculate uncompressed length.
+     * <p>
+     * ISIZE in gzip trailer is a length modulo 2^32, but every chunk except the last
+     * has a fixed length, so the length of the last chunk can be recovered from it.
+     */
+    private long readLength(final long fileSize) throws IOException {
+        if (chunkCount == 0) {
+            return 0;
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(trailer, fileSize - TRAILER_SIZE);
+        long isize = trailer.getInt(4) & 0xffffffffL;
+        long head = (long) (chunkCount - 1) * chunkLength;
+        return head + ((isize - head) & 0xffffffffL);
+    }
+
+    @Override
+    public int blockSize() {
+        return chunkLength;
+    }
+
+    @Override
+    public int blockCount() {
+        return chunkCount;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public ByteBuffer getBlock(final int index) throws IOException {
+        if (index < 0 || index >= chunkCount) {
+            return null;
+        }
+        byte[] data = cache.get(index);
+        if (data == null) {
+            data = inflate(index);
+            cache.put(index, data);
+        }
+        return ByteBuffer.wrap(data);
+    }
+
+    /**
+     * Counters of chunk cache.
+     * @return snapshot of counters, weight is in bytes.
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Inflate a chunk.
+     * @param index chunk index.
+     * @return uncompressed bytes of the chunk.
+     * @throws IOException when I/O error occurred or chunk is broken.
+     */
+    byte[] inflate(final int index) throws IOException {
+        ByteBuffer input = ByteBuffer.allocate((int) (positions[index + 1] - positions[index]));
+        readFully(input, positions[index]);
+        return inflate(index, input);
+    }
+
+    /**
+     * Copy content at several positions into arrays asynchronously.
+     * <p>
+     * Chunks in cache are used as is. Other chunks needed by ranges are read with
+     * AsynchronousFileChannel, without blocking caller, and each of them is inflated once
+     * on executor. Arrays are filled when returned future completes.
+     * @param offsets positions to start.
+     * @param dsts destination arrays, one for each position.
+     * @param executor executor to inflate chunks.
+     * @return future completed when all arrays are filled, or failed with IOException.
+     */
+    public CompletableFuture<Void> readAsync(final long[] offsets, final byte[][] dsts, final Executor executor) {
+        Map<Integer, CompletableFuture<byte[]>> chunks = new HashMap<>();
+        for (int i = 0; i < offsets.length; i++) {
+            if (offsets[i] < 0 || offsets[i] + dsts[i].length > length) {
+                return AsyncFileReader.failedFuture(new EOFException("Unexpected end of file."));
+            }
+            if (dsts[i].length == 0) {
+                continue;
+            }
+            int last = (int) ((offsets[i] + dsts[i].length - 1) / chunkLength);
+            for (int index = (int) (offsets[i] / chunkLength); index <= last; index++) {
+                chunks.computeIfAbsent(index, k -> getBlockAsync(k, executor));
+            }
+        }
+        return CompletableFuture.allOf(chunks.values().toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            for (int i = 0; i < offsets.length; i++) {
+                int off = 0;
+                while (off < dsts[i].length) {
+                    long pos = offsets[i] + off;
+                    byte[] data = chunks.get((int) (pos / chunkLength)).join();
+                    int rel = (int) (pos % chunkLength);
+                    int n = Math.min(dsts[i].length - off, data.length - rel);
+                    System.arraycopy(data, rel, dsts[i], off, n);
+                    off += n;
+                }
+            }
+        });
+    }
+
+    private CompletableFuture<byte[]> getBlockAsync(final int index, final Executor executor) {
+        byte[] cached = cache.get(index);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        ByteBuffer input = ByteBuffer.allocate((int) (positions[index + 1] - positions[index]));
+        return asyncReader.read(positions[index], input).thenApplyAsync(v -> {
+            try {
+                byte[] data = inflate(index, input);
+                cache.put(index, data);
+                return data;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private byte[] inflate(final int index, final ByteBuffer input) throws IOException {
+        long start = (long) index * chunkLength;
+        byte[] output = new byte[(int) Math.min(chunkLength, length - start)];
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        } else {
+            inflater.reset();
+        }
+        boolean reusable = false;
+        try {
+            inflater.setInput(input.array(), 0, input.limit());
+            int len = 0;
+            while (len < output.length) {
+                int n = inflater.inflate(output, len, output.length - len);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                len += n;
+            }
+            if (len != output.length) {
+                throw new IOException("Broken dictzip chunk " + index + ".");
+            }
+            reusable = true;
+        } catch (DataFormatException e) {
+            throw new IOException("Broken dictzip chunk " + index + ".", e);
+        } finally {
+            if (reusable && channel.isOpen()) {
+                inflaters.offer(inflater);
+            } else {
+                inflater.end();
+            }
+        }
+        return output;
+    }
+
+    private void readFully(final ByteBuffer buffer, final long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, pos);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of dictzip file.");
+            }
+            pos += n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        asyncReader.close();
+        Inflater inflater = inflaters.poll();
+        while (inflater != null) {
+            inflater.end();
+            inflater = inflaters.poll();
+        }
+        cache.clear();
+    }
+}
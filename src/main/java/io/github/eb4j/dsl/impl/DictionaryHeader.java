@@ -0,0 +1,257 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2021,2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.dsl.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Header of DSL dictionary: byte order mark, charset, end of line and metadata.
+ * <p>
+ * Everything is detected from one prefix of the content, which is read once
+ * from a BlockSource and decoded in memory.  The prefix grows only when
+ * the header lines do not fit in it.
+ */
+public final class DictionaryHeader {
+    private static final String[] PATTERNS = {"name", "index", "content", "codepage", "include"};
+    private static final Pattern METAPATTERN = Pattern.compile(
+                    "^(\uFEFF)?#(NAME\\s(?<name>.+?)"
+                    + "|INDEX_LANGUAGE\\s(?<index>.+?)"
+                    + "|CONTENTS_LANGUAGE\\s(?<content>.+?)"
+                    + "|SOURCE_CODE_PAGE\\s(?<codepage>.+?))"
+                    + "|INCLUDE\\s(?<include>.+?)$");
+    private static final String[] ALLOWED_CODE_PAGE = {"EasternEuropean", "Cyrillic", "Latin", "Greek", "Turkish"};
+
+    /** Initial size of prefix to probe. */
+    private static final int PROBE_SIZE = 64 * 1024;
+
+    private final int bomLength;
+    private final Charset charset;
+    private final byte[] eol;
+    private final Map<String, String> metadata;
+
+    private DictionaryHeader(final int bomLength, final Charset charset, final byte[] eol,
+                             final Map<String, String> metadata) {
+        this.bomLength = bomLength;
+        this.charset = charset;
+        this.eol = eol;
+        this.metadata = Collections.unmodifiableMap(metadata);
+    }
+
+    /**
+     * Read header of dictionary.
+     * <p>
+     * Source is kept open, so it can be handed to EntriesLoaderImpl afterwards.
+     * @param source block source of dictionary content.
+     * @return DictionaryHeader object.
+     * @throws IOException when I/O error occurred or file is empty.
+     */
+    public static DictionaryHeader read(@NotNull final BlockSource source) throws IOException {
+        long length = source.length();
+        if (length == 0) {
+            throw new IOException("Unexpected end of file.");
+        }
+        BlockCursor cursor = new BlockCursor(source);
+        int size = (int) Math.min(length, PROBE_SIZE);
+        while (true) {
+            byte[] prefix = new byte[size];
+            cursor.read(0, prefix);
+            DictionaryHeader header = parse(prefix, size == length);
+            if (header != null) {
+                return header;
+            }
+            size = (int) Math.min(length, Math.min((long) size * 2, Integer.MAX_VALUE - 8));
+        }
+    }
+
+    /**
+     * Parse header from prefix of content.
+     * @param prefix head bytes of content.
+     * @param complete true when prefix is whole content.
+     * @return DictionaryHeader object, or null when prefix is too short to decide.
+     */
+    private static DictionaryHeader parse(final byte[] prefix, final boolean complete) {
+        int bom = 0;
+        Charset cs;
+        if (startsWith(prefix, 0xef, 0xbb, 0xbf)) {
+            bom = 3;
+            cs = StandardCharsets.UTF_8;
+        } else if (startsWith(prefix, 0xff, 0xfe)) {
+            bom = 2;
+            cs = StandardCharsets.UTF_16LE;
+        } else if (startsWith(prefix, 0xfe, 0xff)) {
+            bom = 2;
+            cs = StandardCharsets.UTF_16BE;
+        } else if (prefix.length < 2 || prefix[1] == '\0') {
+            cs = StandardCharsets.UTF_16LE;
+        } else {
+            // ANSI dictionary declares its codepage in header, otherwise assumes UTF-8
+            Map<String, String> ansi = parseMetadata(new String(prefix, StandardCharsets.ISO_8859_1), complete);
+            if (ansi == null) {
+                return null;
+            }
+            cs = StandardCharsets.UTF_8;
+            String codepageName = ansi.get("codepage");
+            for (int i = 0; i < ALLOWED_CODE_PAGE.length; i++) {
+                if (ALLOWED_CODE_PAGE[i].equals(codepageName)) {
+                    cs = Charset.forName(String.format("Cp%4d", 1250 + i));
+                    break;
+                }
+            }
+        }
+        String text = new String(prefix, cs);
+        byte[] eolBytes = detectEol(text, complete, cs);
+        if (eolBytes == null) {
+            return null;
+        }
+        Map<String, String> meta = parseMetadata(text, complete);
+        if (meta == null) {
+            return null;
+        }
+        return new DictionaryHeader(bom, cs, eolBytes, meta);
+    }
+
+    private static boolean startsWith(final byte[] prefix, final int... bytes) {
+        if (prefix.length < bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if ((prefix[i] & 0xff) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Detect end of line from the first line terminator.
+     * @return terminator bytes, or null when prefix is too short to decide.
+     */
+    private static byte[] detectEol(final String text, final boolean complete, final Charset cs) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\r') {
+                return "\r\n".getBytes(cs);
+            } else if (c == '\n') {
+                return "\n".getBytes(cs);
+            }
+        }
+        if (!complete) {
+            return null;
+        }
+        // default EoL terminator is CR+LF
+        return "\r\n".getBytes(cs);
+    }
+
+    /**
+     * Parse metadata lines until an empty or non-metadata line.
+     * @return metadata map, or null when prefix is too short to decide.
+     */
+    private static Map<String, String> parseMetadata(final String text, final boolean complete) {
+        final Map<String, String> result = new HashMap<>();
+        int pos = 0;
+        while (pos < text.length()) {
+            int end = pos;
+            while (end < text.length() && text.charAt(end) != '\r' && text.charAt(end) != '\n') {
+                end++;
+            }
+            // the last line of an incomplete prefix may be cut, and CR may be followed by LF beyond it
+            if (!complete && end >= text.length() - 1) {
+                return null;
+            }
+            String line = text.substring(pos, end);
+            if (line.isEmpty()) {
+                return result;
+            }
+            Matcher m = METAPATTERN.matcher(line);
+            if (!m.matches()) {
+                return result;
+            }
+            for (String pattern : PATTERNS) {
+                String s = m.group(pattern);
+                if (s != null) {
+                    if (s.startsWith("\"") && s.endsWith("\"")) {
+                        result.put(pattern, s.substring(1, s.length() - 1));
+                    } else {
+                        result.put(pattern, s);
+                    }
+                    break;
+                }
+            }
+            pos = end + 1;
+            if (text.charAt(end) == '\r' && pos < text.length() && text.charAt(pos) == '\n') {
+                pos++;
+            }
+        }
+        if (!complete) {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Length of byte order mark.
+     * @return length in bytes, 0 when there is no BOM.
+     */
+    public int getBomLength() {
+        return bomLength;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public byte[] getEol() {
+        return eol;
+    }
+
+    @Nullable
+    public String getName() {
+        return metadata.get("name");
+    }
+
+    @Nullable
+    public String getIndexLanguage() {
+        return metadata.get("index");
+    }
+
+    @Nullable
+    public String getContentLanguage() {
+        return metadata.get("content");
+    }
+
+    @Nullable
+    public String getCodePage() {
+        return metadata.get("codepage");
+    }
+
+    @Nullable
+    public String getInclude() {
+        return metadata.get("include");
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.dsl.impl;
+
+import java.nio.IntBuffer;
+
+/**
+ * Double-array trie over UTF-8 bytes of keys.
+ * <p>
+ * Node 0 is the root. A transition from node {@code s} by label {@code c}
+ * goes to {@code t = base[s] + c} when {@code check[t] == s}. Label is
+ * byte value + 1, and label 0 terminates a key. A terminal node holds
+ * {@code -(id + 1)} in its base, where id is the rank of the key in
+ * unsigned byte order, so keys under a prefix have consecutive ids.
+ * <p>
+ * Arrays are read with absolute get only, so they can be heap arrays or
+ * memory mapped index file, and the trie is safe for concurrent reads.
+ */
+public final class DoubleArray {
+
+    /** Version of trie layout, stored in index file apart from index version. */
+    public static final int VERSION = 1;
+
+    /** Number of labels: terminal and 256 byte values. */
+    static final int LABELS = 257;
+
+    private final IntBuffer base;
+    private final IntBuffer check;
+    private final int capacity;
+
+    DoubleArray(final IntBuffer base, final IntBuffer check) {
+        this.base = base;
+        this.check = check;
+        capacity = Math.min(base.limit(), check.limit());
+    }
+
+    IntBuffer getBase() {
+        return base;
+    }
+
+    IntBuffer getCheck() {
+        return check;
+    }
+
+    /**
+     * Number of nodes.
+     * @return size of arrays.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Exact match.
+     * @param key UTF-8 bytes of key.
+     * @return id of key, or -1 when not found.
+     */
+    public int get(final byte[] key) {
+        int s = traverse(key);
+        if (s < 0) {
+            return -1;
+        }
+        int t = child(s, 0);
+        if (t < 0) {
+            return -1;
+        }
+        return -base.get(t) - 1;
+    }
+
+    /**
+     * Predictive match.
+     * @param prefix UTF-8 bytes of prefix.
+     * @return two elements array of first id and last id + 1 of keys starting with prefix.
+     *     Both are same when nothing matches.
+     */
+    public int[] prefixRange(final byte[] prefix) {
+        int s = traverse(prefix);
+        if (s < 0) {
+            return new int[] {0, 0};
+        }
+        int first = edge(s, true);
+        if (first < 0) {
+            return new int[] {0, 0};
+        }
+        return new int[] {first, edge(s, false) + 1};
+    }
+
+    private int traverse(final byte[] key) {
+        int s = 0;
+        for (byte b : key) {
+            s = child(s, (b & 0xff) + 1);
+            if (s < 0) {
+                return -1;
+            }
+        }
+        return s;
+    }
+
+    private int child(final int s, final int label) {
+        int b = base.get(s);
+        if (b <= 0) {
+            return -1;
+        }
+        int t = b + label;
+        if (t >= capacity || check.get(t) != s) {
+            return -1;
+        }
+        return t;
+    }
+
+    /**
+     * Follow smallest or largest labels down to a terminal.
+     * @return id of leftmost or rightmost key under node, or -1 when node has no key.
+     */
+    private int edge(final int node, final boolean leftmost) {
+        int s = node;
+        while (true) {
+            int b = base.get(s);
+            if (b < 0) {
+                return -b - 1;
+            }
+            int next = -1;
+            for (int i = 0; i < LABELS && next < 0; i++) {
+                int label = i;
+                if (!leftmost) {
+                    label = LABELS - 1 - i;
+                }
+                next = child(s, label);
+            }
+            if (next < 0) {
+                return -1;
+            }
+            s = next;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.dsl.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Build DoubleArray from sorted unique keys.
+ * <p>
+ * Free slots are searched from a moving start position, which skips
+ * the densely filled head of the arrays as in darts.
+ */
+final class DoubleArrayBuilder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double DENSITY = 0.95;
+
+    private int[] base;
+    private int[] check;
+    private int size;
+    private int nextCheckPos;
+
+    private DoubleArrayBuilder() {
+        base = new int[INITIAL_CAPACITY];
+        check = new int[INITIAL_CAPACITY];
+        Arrays.fill(check, -1);
+        // root is never a child
+        check[0] = 0;
+        size = 1;
+    }
+
+    /**
+     * Build trie.
+     * <p>
+     * Key {@code i} is the bytes from {@code keyOffsets[i]} to {@code keyOffsets[i + 1]}
+     * in keyBytes, which is the key table layout of PackedIndex.
+     * @param keyOffsets start of each key and end of last key.
+     * @param keyBytes UTF-8 bytes of keys, sorted in unsigned byte order without duplication.
+     * @return DoubleArray object on heap.
+     */
+    static DoubleArray build(final IntBuffer keyOffsets, final ByteBuffer keyBytes) {
+        DoubleArrayBuilder builder = new DoubleArrayBuilder();
+        if (keyOffsets.limit() > 1) {
+            builder.insert(keyOffsets, keyBytes);
+        }
+        return new DoubleArray(IntBuffer.wrap(Arrays.copyOf(builder.base, builder.size)),
+                IntBuffer.wrap(Arrays.copyOf(builder.check, builder.size)));
+    }
+
+    private void insert(final IntBuffer keyOffsets, final ByteBuffer keyBytes) {
+        int[] labels = new int[DoubleArray.LABELS];
+        int[] starts = new int[DoubleArray.LABELS + 1];
+        Deque<int[]> stack = new ArrayDeque<>();
+        // node, first key, last key + 1, depth
+        stack.push(new int[] {0, 0, keyOffsets.limit() - 1, 0});
+        while (!stack.isEmpty()) {
+            int[] task = stack.pop();
+            int node = task[0];
+            int depth = task[3];
+            int count = 0;
+            int prev = -1;
+            for (int i = task[1]; i < task[2]; i++) {
+                int label = label(keyOffsets, keyBytes, i, depth);
+                if (label != prev) {
+                    labels[count] = label;
+                    starts[count] = i;
+                    count++;
+                    prev = label;
+                }
+            }
+            starts[count] = task[2];
+            int b = findBase(labels, count);
+            base[node] = b;
+            for (int i = 0; i < count; i++) {
+                check[b + labels[i]] = node;
+            }
+            size = Math.max(size, b + labels[count - 1] + 1);
+            for (int i = count - 1; i >= 0; i--) {
+                int t = b + labels[i];
+                if (labels[i] == 0) {
+                    base[t] = -starts[i] - 1;
+                } else {
+                    stack.push(new int[] {t, starts[i], starts[i + 1], depth + 1});
+                }
+            }
+        }
+    }
+
+    private static int label(final IntBuffer keyOffsets, final ByteBuffer keyBytes, final int key,
+                             final int depth) {
+        int pos = keyOffsets.get(key) + depth;
+        if (pos < keyOffsets.get(key + 1)) {
+            return (keyBytes.get(pos) & 0xff) + 1;
+        }
+        return 0;
+    }
+
+    private int findBase(final int[] labels, final int count) {
+        int first = labels[0];
+        int pos = Math.max(first + 1, nextCheckPos);
+        int occupied = 0;
+        boolean seenFree = false;
+        int b;
+        while (true) {
+            ensure(pos + DoubleArray.LABELS);
+            if (check[pos] != -1) {
+                occupied++;
+                pos++;
+                continue;
+            }
+            if (!seenFree) {
+                nextCheckPos = pos;
+                seenFree = true;
+            }
+            b = pos - first;
+            boolean fit = true;
+            for (int i = 1; i < count; i++) {
+                if (check[b + labels[i]] != -1) {
+                    fit = false;
+                    break;
+                }
+            }
+            if (fit) {
+                break;
+            }
+            pos++;
+        }
+        if ((double) occupied / (pos - nextCheckPos + 1) >= DENSITY) {
+            nextCheckPos = pos;
+        }
+        return b;
+    }
+
+    private void ensure(final int required) {
+        if (required < check.length) {
+            return;
+        }
+        int capacity = Math.max(required + 1, check.length + (check.length >> 1));
+        int old = check.length;
+        base = Arrays.copyOf(base, capacity);
+        check = Arrays.copyOf(check, capacity);
+        Arrays.fill(check, old, capacity, -1);
+    }
+}
@@ -18,27 +18,32 @@
 
 package io.github.eb4j.dsl.impl;
 
-import io.github.eb4j.dsl.index.DslIndex;
-import org.dict.zip.DictZipInputStream;
-import org.dict.zip.RandomAccessInputStream;
+import io.github.eb4j.dsl.data.IndexMode;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+/**
+ * Scanner to build index entries of DSL file.
+ * <p>
+ * The scanner reads dictionary through BlockSource, that is memory mapped segments
+ * for plain DSL file and inflated chunks for dictzip file, and finds card boundaries
+ * with index arithmetic on absolute positions.
+ */
 public class EntriesLoaderImpl implements AutoCloseable {
 
-    private final boolean isDictZip;
     private final Charset charset;
-
-    private DictZipInputStream dzis;
-    private RandomAccessInputStream rais;
+    private final BlockSource source;
+    private final boolean isUTF16;
+    private final boolean isBE;
+    private final long length;
+    private final IndexMode mode;
 
     private final byte[] eol;
     private final byte[] cr;
@@ -47,19 +52,42 @@ public class EntriesLoaderImpl implements AutoCloseable {
     private final byte[] space;
     private final byte[] commentStart;
     private final byte[] sharp;
+    private final int unit;
 
     public EntriesLoaderImpl(final Path path, final boolean isDictZip, final Charset charset, final byte[] eol)
             throws IOException {
-        this.isDictZip = isDictZip;
+        this(BlockSource.open(path, isDictZip), charset, eol);
+    }
+
+    /**
+     * Constructor with already opened block source.
+     * <p>
+     * The loader takes ownership of the source and closes it on {@link #close()}.
+     * @param source block source of dictionary.
+     * @param charset charset of dictionary.
+     * @param eol end of line bytes.
+     */
+    public EntriesLoaderImpl(final BlockSource source, final Charset charset, final byte[] eol) {
+        this(source, charset, eol, IndexMode.STANDARD);
+    }
+
+    /**
+     * Constructor with already opened block source.
+     * <p>
+     * The loader takes ownership of the source and closes it on {@link #close()}.
+     * @param source block source of dictionary.
+     * @param charset charset of dictionary.
+     * @param eol end of line bytes.
+     * @param mode how keys of entries are stored.
+     */
+    public EntriesLoaderImpl(final BlockSource source, final Charset charset, final byte[] eol,
+                             final IndexMode mode) {
+        this.mode = mode;
         this.charset = charset;
-        // DictZipInputStream is child of InflateInputStream
-        // It shares common ancestor InputStream with RandomAccessInputStream
-        // Both class has `position()` method that InputStream don't have.
-        if (isDictZip) {
-            dzis = new DictZipInputStream(new RandomAccessInputStream(new RandomAccessFile(path.toFile(), "r")));
-        } else {
-            rais = new RandomAccessInputStream(new RandomAccessFile(path.toFile(), "r"));
-        }
+        this.source = source;
+        length = source.length();
+        isBE = StandardCharsets.UTF_16BE.equals(charset);
+        isUTF16 = StandardCharsets.UTF_16LE.equals(charset) || isBE;
 
         this.eol = Arrays.copyOf(eol, eol.length);
         cr = "\r".getBytes(charset);
@@ -68,319 +96,435 @@ public class EntriesLoaderImpl implements AutoCloseable {
         space = " ".getBytes(charset);
         commentStart = "{{".getBytes(charset);
         sharp = "#".getBytes(charset);
+        unit = tab.length;
     }
 
     public void close() throws IOException {
-        if (isDictZip) {
-            dzis.close();
-        } else {
-            rais.close();
-        }
+        source.close();
     }
 
-    @SuppressWarnings("innerassignment")
-    public List<DslIndex.Entry> load() throws IOException {
-        List<DslIndex.Entry> entries = new ArrayList<>();
-        long cardStart;
-        long articleStart;
-        String headWords;
-        cardStart = entryStartSearch();
-        while (true) {
-            // skip comment
-            long next = skipComment();
-            // check multiple head words
-            long headWordLen = eolSearch();
-            if (headWordLen == -1) {
-                break;
-            }
-            while (!isSpaceOrTab()) {
-                next = eolSearch();
-                if (next == -1) {
-                    break;
-                }
-                headWordLen += next;
-            }
-            seek(cardStart);
-            byte[] headWordBytes = new byte[(int) headWordLen];
-            readFully(headWordBytes);
-            headWords = new String(headWordBytes, charset).trim();
-            long spaces = skipSpaceTabs();
-            articleStart = cardStart + headWordLen + spaces;
-            seek(articleStart);
-            // It can be position() but dictzip may not return correct position
-            // articleStart = position();
-            long articleLen = cardEndSearch();
-            String[] tokens = headWords.split("\\r?\\n");
-            for (String token : tokens) {
-                entries.add(DslIndex.Entry.newBuilder()
-                        .setHeadWord(token)
-                        .setOffset(articleStart)
-                        .setSize((int) articleLen)
-                        .setHeaderOffset(cardStart)
-                        .setHeaderSize((int) headWordLen)
-                        .build());
-            }
-            // reset to new cardStart. previous cardEndSearch() point NEXT to cardStart first character.
-            cardStart = articleStart + articleLen;
-            if (isEof()) {
-                break;
-            }
-            seek(cardStart);
-            int empty;
-            if ((empty = skipEmptyLine()) != -1) {
-                if (isEof()) {
-                    break;
-                }
-                cardStart += empty;
-            } else {
-                // EOF detected
-                break;
-            }
+    /**
+     * Scan whole dictionary in current thread.
+     * @return table of entries.
+     * @throws IOException when i/o error occurred.
+     */
+    public EntryTable load() throws IOException {
+        Scanner scanner = new Scanner();
+        EntryTable entries = new EntryTable(mode);
+        long cardStart = scanner.entryStartSearch();
+        if (cardStart != -1) {
+            scanner.scan(cardStart, Long.MAX_VALUE, entries);
         }
         return entries;
     }
 
-    private void seek(final long pos) throws IOException {
-        if (isDictZip) {
-            dzis.seek(pos);
-        } else {
-            rais.seek(pos);
-        }
+    /**
+     * Length of dictionary content.
+     * @return length in bytes, that is uncompressed length for dictzip.
+     */
+    public long length() {
+        return length;
     }
 
-    private boolean isEof() throws IOException {
-        if (isDictZip) {
-            return dzis.available() <= 0;
-        } else {
-            return rais.available() <= 0;
+    /**
+     * Scan dictionary in parallel with fork/join common pool.
+     * <p>
+     * The dictionary is split into byte ranges. Each range is scanned from a guessed card
+     * start, that is a line which is not started with tab or space and follows an article line,
+     * and a guess can be wrong around blank or comment lines. Scan from a card start is
+     * deterministic, so ranges are joined at the card where scan of left range stopped:
+     * cards of right range before it are dropped, and right range is scanned again from it
+     * when no card of right range starts there. Result is as same as {@link #load()}.
+     * When blocks are smaller than a range, as dictzip chunks are, ranges are aligned to
+     * block boundaries, so each worker inflates its own chunks and only a chunk at the
+     * boundary is read by two workers.
+     * @param ranges number of ranges to split.
+     * @return table of entries.
+     * @throws IOException when i/o error occurred.
+     */
+    public EntryTable loadParallel(final int ranges) throws IOException {
+        if (ranges <= 1) {
+            return load();
+        }
+        long firstCard = new Scanner().entryStartSearch();
+        if (firstCard == -1) {
+            return new EntryTable(mode);
+        }
+        long rangeSize = length / ranges;
+        long blockSize = source.blockSize();
+        long[] starts = new long[ranges + 1];
+        starts[0] = firstCard;
+        for (int i = 1; i < ranges; i++) {
+            long guess = rangeSize * i;
+            if (blockSize <= rangeSize) {
+                guess = guess / blockSize * blockSize;
+            }
+            // keep character alignment of UTF-16
+            starts[i] = (guess + unit - 1) / unit * unit;
+        }
+        starts[ranges] = Long.MAX_VALUE;
+        try {
+            return ForkJoinPool.commonPool().invoke(new RangeTask(starts, 0, ranges)).entries;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
     }
 
-    private long position() throws IOException {
-        if (isDictZip) {
-            return dzis.position();
-        } else {
-            return rais.position();
+    /**
+     * Entries scanned from a card, and where scan stopped.
+     * <p>
+     * A card start decides the next one, so scans from two positions give same cards after
+     * they meet at a card start.
+     */
+    private static final class ScanResult {
+        private final EntryTable entries;
+        /** Position where no more card is taken, or Long.MAX_VALUE. */
+        private final long end;
+        /** Start of first card at or after end, or -1 when scan reached end of file. */
+        private final long next;
+
+        ScanResult(final EntryTable entries, final long end, final long next) {
+            this.entries = entries;
+            this.end = end;
+            this.next = next;
         }
     }
 
-    private long skipComment() throws IOException {
-        byte[] b = new byte[commentStart.length];
-        InputStream is;
-        if (isDictZip) {
-            is = dzis;
-        } else {
-            is = rais;
+    /**
+     * Fork/join task to scan ranges between guessed split points.
+     */
+    private final class RangeTask extends RecursiveTask<ScanResult> {
+        private static final long serialVersionUID = 1L;
+        private final long[] guesses;
+        private final int low;
+        private final int high;
+
+        /**
+         * Constructor.
+         * @param guesses split points; first one is a start of first card, and last one is Long.MAX_VALUE.
+         * @param low index of first range.
+         * @param high index next to last range.
+         */
+        RangeTask(final long[] guesses, final int low, final int high) {
+            this.guesses = guesses;
+            this.low = low;
+            this.high = high;
         }
-        is.mark(commentStart.length);
-        if (is.read(b) > 0) {
-            if (Arrays.equals(commentStart, b)) {
-                // we should check end of comment, but now we ignore line.
-                return eolSearch();
+
+        @Override
+        protected ScanResult compute() {
+            try {
+                if (high - low > 1) {
+                    int mid = (low + high) >>> 1;
+                    RangeTask left = new RangeTask(guesses, low, mid);
+                    left.fork();
+                    ScanResult right = new RangeTask(guesses, mid, high).compute();
+                    return merge(left.join(), right);
+                }
+                Scanner scanner = new Scanner();
+                long firstCard = guesses[0];
+                long start = firstCard;
+                if (low > 0) {
+                    // a guess of card start; it is checked by merge with the range before
+                    start = Math.max(firstCard, scanner.cardStartSearch(guesses[low]));
+                }
+                long end = guesses[high];
+                EntryTable entries = new EntryTable(mode);
+                if (start >= length) {
+                    return new ScanResult(entries, end, -1);
+                }
+                if (start >= end) {
+                    return new ScanResult(entries, end, start);
+                }
+                return new ScanResult(entries, end, scanner.scan(start, end, entries));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            is.reset();
-            return 0;
         }
-        // got EOF
-        return -1;
 
-    }
-
-    private long entryStartSearch() throws IOException {
-        byte[] b = new byte[sharp.length];
-        InputStream is;
-        if (isDictZip) {
-            is = dzis;
-        } else {
-            is = rais;
-        }
-        if (eolSearch() == -1) {
-            return -1;
+        /**
+         * Join scans of neighbouring ranges.
+         * <p>
+         * Cards of right range are taken from the card where left scan stopped. When the right scan
+         * started elsewhere and does not meet the card, the right range is scanned again from it.
+         */
+        private ScanResult merge(final ScanResult left, final ScanResult right) throws IOException {
+            long next = left.next;
+            if (next == -1 || next >= right.end) {
+                return new ScanResult(left.entries, right.end, next);
+            }
+            EntryTable entries = right.entries;
+            int from = firstCardAt(entries, next);
+            if (from < entries.size() && entries.getHeaderOffset(from) == next) {
+                left.entries.addAll(entries, from);
+                return new ScanResult(left.entries, right.end, right.next);
+            }
+            EntryTable rescanned = new EntryTable(mode);
+            long after = new Scanner().scan(next, right.end, rescanned);
+            left.entries.addAll(rescanned);
+            return new ScanResult(left.entries, right.end, after);
         }
-        is.mark(sharp.length);
-        while (is.read(b) != 0) {
-            if (Arrays.equals(sharp, b)) {
-                if (eolSearch() == -1) {
-                    break;
+
+        /**
+         * Index of first entry of which card starts at or after the position.
+         */
+        private int firstCardAt(final EntryTable entries, final long position) {
+            int lo = 0;
+            int hi = entries.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (entries.getHeaderOffset(mid) < position) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
                 }
-            } else if (Arrays.equals(cr, b) || Arrays.equals(lf, b)) {
-                is.mark(sharp.length);
-                continue;
-            } else {
-                is.reset();
-                return position();
             }
-            is.mark(sharp.length);
+            return lo;
         }
-        return -1;
     }
 
     /**
-     * search card-end and return article length.
-     *
-     * It treat EOF case.
-     * @return length of article in byte.
-     * @throws IOException when i/o error occurred.
+     * Card scanner. It holds its own cursor, so each thread should use its own scanner.
      */
-    private long cardEndSearch() throws IOException {
-        byte[] b = new byte[tab.length];
-        long current = position();
-        InputStream is;
-        if (isDictZip) {
-            is = dzis;
-        } else {
-            is = rais;
-        }
-        long len = eolSearch();
-        if (len == -1) {
-            // EOF detected
-            return position() - current;
+    private final class Scanner {
+        private final BlockCursor cursor = new BlockCursor(source);
+
+        /**
+         * Scan cards.
+         * @param start position of first card.
+         * @param end position where no more card starts.
+         * @param entries table to add entries.
+         * @return start of first card at or after end, or -1 when end of file is reached.
+         * @throws IOException when i/o error occurred.
+         */
+        long scan(final long start, final long end, final EntryTable entries) throws IOException {
+            long cardStart = start;
+            long pos = cardStart;
+            while (true) {
+                // skip comment
+                if (cursor.matches(pos, commentStart)) {
+                    // we should check end of comment, but now we ignore line.
+                    pos = eolSearch(pos + commentStart.length);
+                    if (pos == -1) {
+                        return -1;
+                    }
+                }
+                // check multiple head words
+                long next = eolSearch(pos);
+                if (next == -1) {
+                    return -1;
+                }
+                long headWordLen = next - pos;
+                pos = next;
+                while (!isSpaceOrTab(pos)) {
+                    // a length of following head word lines is counted from its second character.
+                    next = eolSearch(pos + unit);
+                    if (next == -1) {
+                        break;
+                    }
+                    headWordLen += next - pos - unit;
+                    pos = next;
+                }
+                byte[] headWordBytes = new byte[(int) headWordLen];
+                cursor.read(cardStart, headWordBytes);
+                String headWords = new String(headWordBytes, charset).trim();
+                long articleStart = skipSpaceTabs(cardStart + headWordLen);
+                long cardEnd = cardEndSearch(articleStart);
+                long articleLen = cardEnd - articleStart;
+                String[] tokens = headWords.split("\\r?\\n");
+                for (String token : tokens) {
+                    entries.add(token, cardStart, (int) headWordLen, articleStart, (int) articleLen);
+                }
+                // cardEndSearch() have read first character of new cardStart.
+                if (cardEnd + unit >= length) {
+                    return -1;
+                }
+                // reset to new cardStart.
+                cardStart = skipEmptyLine(cardEnd);
+                if (cardStart == -1 || cardStart >= end) {
+                    // EOF detected or reached to next range
+                    return cardStart;
+                }
+                pos = cardStart;
+            }
         }
-        boolean eof = true;
-        while (is.read(b) != 0) {
-            if (!Arrays.equals(tab, b) && !Arrays.equals(space, b)) {
-                eof = false;
-                break;
+
+        long entryStartSearch() throws IOException {
+            long pos = eolSearch(0);
+            if (pos == -1) {
+                return -1;
             }
-            len = eolSearch();
-            if (len == -1) {
-                // EOF detected.
-                break;
+            while (pos < length) {
+                if (cursor.matches(pos, sharp)) {
+                    pos = eolSearch(pos + sharp.length);
+                    if (pos == -1) {
+                        break;
+                    }
+                } else if (cursor.matches(pos, cr) || cursor.matches(pos, lf)) {
+                    pos += unit;
+                } else {
+                    return pos;
+                }
             }
+            return -1;
         }
-        if (eof) {
-            return position() - current;
-        } else {
-            return position() - current - tab.length;
-        }
-    }
 
-    private long skipSpaceTabs() throws IOException {
-        long readBytes = 0;
-        InputStream is;
-        if (isDictZip) {
-            is = dzis;
-        } else {
-            is = rais;
-        }
-        is.mark(tab.length);
-        while (isSpaceOrTab()) {
-            readBytes += tab.length;
-            is.mark(tab.length);
+        /**
+         * Search a card start after the position.
+         * <p>
+         * Card start is a line which is not started with space or tab, and
+         * is placed after an article line with optional empty lines.
+         * An article line just after a comment line is not taken, because
+         * it is read as a head word of the card started with the comment.
+         * @param from position to start search.
+         * @return position of card start, or EOF position when not found.
+         * @throws IOException when i/o error occurred.
+         */
+        long cardStartSearch(final long from) throws IOException {
+            boolean afterArticle = false;
+            // whether a previous line is known and is not a comment.
+            boolean prevIsNotComment = false;
+            long pos = eolSearch(from);
+            while (pos != -1 && pos < length) {
+                if (isSpaceOrTab(pos)) {
+                    afterArticle = prevIsNotComment;
+                    prevIsNotComment = true;
+                } else if (cursor.matches(pos, cr) || cursor.matches(pos, lf)) {
+                    prevIsNotComment = true;
+                } else if (afterArticle) {
+                    return pos;
+                } else {
+                    prevIsNotComment = !cursor.matches(pos, commentStart);
+                }
+                pos = eolSearch(pos);
+            }
+            return length;
         }
-        is.reset();
-        return readBytes;
-    }
 
-    private void readFully(final byte[] buffer) throws IOException {
-        if (isDictZip) {
-            dzis.readFully(buffer);
-        } else {
-            rais.readFully(buffer);
+        /**
+         * search card-end.
+         *
+         * It treat EOF case.
+         * @param articleStart position of article.
+         * @return position of card end, that is a start of a line which does not start with space or tab,
+         * or end of file.
+         * @throws IOException when i/o error occurred.
+         */
+        private long cardEndSearch(final long articleStart) throws IOException {
+            long pos = eolSearch(articleStart);
+            if (pos == -1) {
+                // EOF detected
+                return length;
+            }
+            boolean firstLine = true;
+            while (pos < length) {
+                if (!isSpaceOrTab(pos)) {
+                    return Math.min(pos + unit, length) - unit;
+                }
+                firstLine = false;
+                pos = eolSearch(pos + unit);
+                if (pos == -1) {
+                    // EOF detected.
+                    return length;
+                }
+            }
+            // a line terminator at EOF is not a part of single line article.
+            if (firstLine) {
+                return length - unit;
+            }
+            return length;
         }
-    }
 
-    private boolean isSpaceOrTab() throws IOException {
-        byte[] b = new byte[tab.length];
-        InputStream is;
-        if (isDictZip) {
-            is = dzis;
-        } else {
-            is = rais;
-        }
-        if (is.read(b) != 0) {
-            return Arrays.equals(tab, b) || Arrays.equals(space, b);
+        private long skipSpaceTabs(final long start) throws IOException {
+            long pos = start;
+            while (isSpaceOrTab(pos)) {
+                pos += unit;
+            }
+            return pos;
         }
-        return false;
-    }
 
-    private int skipEmptyLine() throws IOException {
-        int readByte = 0;
-        byte[] b = new byte[cr.length];
-        InputStream is;
-        if (isDictZip) {
-            is = dzis;
-        } else {
-            is = rais;
+        private boolean isSpaceOrTab(final long pos) throws IOException {
+            return cursor.matches(pos, tab) || cursor.matches(pos, space);
         }
-        is.mark(cr.length);
-        while (is.read(b) > 0) {
-            if (Arrays.equals(cr, b)) {
-                readByte += cr.length;
-                if (is.read(b) != 0 && Arrays.equals(lf, b)) {
-                    readByte += lf.length;
-                } else {
-                    // CR without LF
-                    throw new IOException("CR without LF line termination.");
-                }
-            } else {
-                // character other than CR found
-                // check LF?
-                if (!Arrays.equals(lf, b)) {
-                    is.reset();
-                    return readByte;
+
+        /**
+         * Skip empty lines.
+         * @param start position to start.
+         * @return position of first character which is not a part of empty line, or -1 when EOF.
+         * @throws IOException when i/o error occurred or CR without LF found.
+         */
+        private long skipEmptyLine(final long start) throws IOException {
+            long pos = start;
+            while (pos < length) {
+                if (cursor.matches(pos, cr)) {
+                    pos += unit;
+                    if (cursor.matches(pos, lf)) {
+                        pos += unit;
+                    } else {
+                        // CR without LF
+                        throw new IOException("CR without LF line termination.");
+                    }
+                } else if (cursor.matches(pos, lf)) {
+                    pos += unit;
                 } else {
-                    readByte += lf.length;
+                    // character other than CR and LF found
+                    return pos;
                 }
             }
-            is.mark(cr.length);
+            // end of file without CRLF
+            return -1;
         }
-        // end of file without CRLF
-        return -1;
-    }
 
-    /**
-     * Lazy searcher for EOL terminator.
-     *
-     * DSL file can take 4 variations of line end terminator.
-     * UTF-16LE CR+LF:  0x0d 0x00 0x0a 0x00
-     * UTF-16LE LF: 0x0a 0x00
-     * UTF-8 or ANSI LF: 0x0a
-     * UTF-8 or ANSI CR+LF: 0x0d 0x0a
-     * @return -1 when EoF, otherwise a distance to eol from current position.
-     * @throws IOException when i/o error occurred.
-     */
-    @SuppressWarnings("innerassignment")
-    private long eolSearch() throws IOException {
-        int b;
-        InputStream stream;
-        if (isDictZip) {
-            stream = dzis;
-        } else {
-            stream = rais;
-        }
-        long current = position();
-        boolean isBE = StandardCharsets.UTF_16BE.equals(charset);
-        boolean isUTF16 = StandardCharsets.UTF_16LE.equals(charset) || isBE;
-        byte prev = 0;
-        while ((b = stream.read()) != -1) {
-            if ((byte) b != 0x0a) {
-                prev = (byte) b;
-                continue;
-            }
+        /**
+         * Searcher for EOL terminator.
+         *
+         * DSL file can take 4 variations of line end terminator.
+         * UTF-16LE CR+LF:  0x0d 0x00 0x0a 0x00
+         * UTF-16LE LF: 0x0a 0x00
+         * UTF-8 or ANSI LF: 0x0a
+         * UTF-8 or ANSI CR+LF: 0x0d 0x0a
+         * @param start position to start search.
+         * @return -1 when EoF, otherwise a position next to eol.
+         * @throws IOException when i/o error occurred.
+         */
+        private long eolSearch(final long start) throws IOException {
+            long pos = start;
             if (!isUTF16) {
                 // LF found when UTF-8 and ANSI charsets
-                return position() - current;
+                long found = cursor.indexOf((byte) 0x0a, pos);
+                if (found == -1) {
+                    return -1;
+                }
+                return found + 1;
             }
-            if (isBE) {
-                if (prev == 0) {
-                    // found LF in UTF-16BE
-                    return position() - current;
-                } else {
+            int prev = 0;
+            while (true) {
+                long found = cursor.indexOf((byte) 0x0a, pos);
+                if (found == -1) {
+                    return -1;
+                }
+                if (isBE) {
+                    if (found > pos) {
+                        prev = cursor.get(found - 1);
+                    }
+                    if (prev == 0) {
+                        // found LF in UTF-16BE
+                        return found + 1;
+                    }
+                    pos = found + 1;
                     continue;
                 }
+                // check second byte of Little-endian
+                int b = cursor.get(found + 1);
+                if (b == -1) {
+                    return -1;
+                }
+                if (b == 0x00) {
+                    // Found LF in UTF-16LE
+                    return found + 2;
+                }
+                pos = found + 2;
             }
-            // check second byte of Little-endian
-            if ((b = stream.read()) == -1) {
-                return -1;
-            }
-            if (b != 0x00) {
-                continue;
-            }
-            // Found LF in UTF-16LE
-            return position() - current;
         }
-        // no dice, eof found.
-        return -1;
     }
 }
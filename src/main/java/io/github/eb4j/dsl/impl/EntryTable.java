@@ -0,0 +1,313 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.dsl.impl;
+
+import io.github.eb4j.dsl.data.IndexMode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable table of index entries in primitive columns.
+ * <p>
+ * Each entry has offset and size of its article and header. Keys of an entry,
+ * its headword and the lower case or case folded form when it is different, are
+ * stored as UTF-8 bytes in one pool, so building an index from millions of entries
+ * creates no object per entry.
+ */
+public final class EntryTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final IndexMode mode;
+
+    private int count;
+    private long[] offsets = new long[INITIAL_CAPACITY];
+    private int[] sizes = new int[INITIAL_CAPACITY];
+    private long[] headerOffsets = new long[INITIAL_CAPACITY];
+    private int[] headerSizes = new int[INITIAL_CAPACITY];
+    /** First key of each entry, that is its headword. */
+    private int[] headWordKeys = new int[INITIAL_CAPACITY];
+    /** Case marks of entries in case folded mode. */
+    private int[] marks = new int[0];
+
+    private int keyCount;
+    private int[] keyEntries = new int[INITIAL_CAPACITY];
+    private int[] keyStarts = new int[INITIAL_CAPACITY + 1];
+    private byte[] pool = new byte[INITIAL_CAPACITY * 16];
+
+    /**
+     * Constructor of table in standard mode.
+     */
+    public EntryTable() {
+        this(IndexMode.STANDARD);
+    }
+
+    /**
+     * Constructor.
+     * @param mode how keys are stored.
+     */
+    public EntryTable(final IndexMode mode) {
+        this.mode = mode;
+        if (mode == IndexMode.CASE_FOLDED) {
+            marks = new int[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Add an entry.
+     * @param headWord headword.
+     * @param headerOffset offset of header in dictionary.
+     * @param headerSize size of header.
+     * @param offset offset of article in dictionary.
+     * @param size size of article.
+     */
+    public void add(final String headWord, final long headerOffset, final int headerSize, final long offset,
+                    final int size) {
+        if (count == offsets.length) {
+            int capacity = count + (count >> 1);
+            offsets = Arrays.copyOf(offsets, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            headerOffsets = Arrays.copyOf(headerOffsets, capacity);
+            headerSizes = Arrays.copyOf(headerSizes, capacity);
+            headWordKeys = Arrays.copyOf(headWordKeys, capacity);
+            if (mode == IndexMode.CASE_FOLDED) {
+                marks = Arrays.copyOf(marks, capacity);
+            }
+        }
+        offsets[count] = offset;
+        sizes[count] = size;
+        headerOffsets[count] = headerOffset;
+        headerSizes[count] = headerSize;
+        headWordKeys[count] = keyCount;
+        addKey(headWord.getBytes(StandardCharsets.UTF_8), count);
+        String key;
+        if (mode == IndexMode.CASE_FOLDED) {
+            key = CaseMarks.fold(headWord);
+            marks[count] = CaseMarks.mark(headWord, key);
+        } else {
+            key = headWord.toLowerCase();
+        }
+        if (!headWord.equals(key)) {
+            addKey(key.getBytes(StandardCharsets.UTF_8), count);
+        }
+        count++;
+    }
+
+    /**
+     * Append all entries of other table.
+     * @param other table to append.
+     */
+    public void addAll(final EntryTable other) {
+        addAll(other, 0);
+    }
+
+    /**
+     * Append entries of other table from an entry.
+     * @param other table to append.
+     * @param from index of first entry to append.
+     */
+    public void addAll(final EntryTable other, final int from) {
+        if (mode != other.mode) {
+            throw new IllegalArgumentException("Index mode is different.");
+        }
+        int added = other.count - from;
+        int fromKey = other.keyCount;
+        if (from < other.count) {
+            fromKey = other.headWordKeys[from];
+        }
+        int addedKeys = other.keyCount - fromKey;
+        int newCount = count + added;
+        if (newCount > offsets.length) {
+            offsets = Arrays.copyOf(offsets, newCount);
+            sizes = Arrays.copyOf(sizes, newCount);
+            headerOffsets = Arrays.copyOf(headerOffsets, newCount);
+            headerSizes = Arrays.copyOf(headerSizes, newCount);
+            headWordKeys = Arrays.copyOf(headWordKeys, newCount);
+            if (mode == IndexMode.CASE_FOLDED) {
+                marks = Arrays.copyOf(marks, newCount);
+            }
+        }
+        if (mode == IndexMode.CASE_FOLDED) {
+            System.arraycopy(other.marks, from, marks, count, added);
+        }
+        System.arraycopy(other.offsets, from, offsets, count, added);
+        System.arraycopy(other.sizes, from, sizes, count, added);
+        System.arraycopy(other.headerOffsets, from, headerOffsets, count, added);
+        System.arraycopy(other.headerSizes, from, headerSizes, count, added);
+        for (int i = 0; i < added; i++) {
+            headWordKeys[count + i] = keyCount + other.headWordKeys[from + i] - fromKey;
+        }
+        int newKeyCount = keyCount + addedKeys;
+        if (newKeyCount > keyEntries.length) {
+            keyEntries = Arrays.copyOf(keyEntries, newKeyCount);
+            keyStarts = Arrays.copyOf(keyStarts, newKeyCount + 1);
+        }
+        int poolStart = keyStarts[keyCount];
+        int poolFrom = other.keyStarts[fromKey];
+        int poolEnd = poolStart + other.keyStarts[other.keyCount] - poolFrom;
+        if (poolEnd > pool.length) {
+            pool = Arrays.copyOf(pool, poolEnd);
+        }
+        System.arraycopy(other.pool, poolFrom, pool, poolStart, poolEnd - poolStart);
+        for (int i = 0; i < addedKeys; i++) {
+            keyEntries[keyCount + i] = count + other.keyEntries[fromKey + i] - from;
+            keyStarts[keyCount + i + 1] = poolStart + other.keyStarts[fromKey + i + 1] - poolFrom;
+        }
+        count = newCount;
+        keyCount = newKeyCount;
+    }
+
+    private void addKey(final byte[] key, final int entry) {
+        if (keyCount == keyEntries.length) {
+            int capacity = keyCount + (keyCount >> 1);
+            keyEntries = Arrays.copyOf(keyEntries, capacity);
+            keyStarts = Arrays.copyOf(keyStarts, capacity + 1);
+        }
+        int start = keyStarts[keyCount];
+        if (start + key.length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(start + key.length, pool.length + (pool.length >> 1)));
+        }
+        System.arraycopy(key, 0, pool, start, key.length);
+        keyEntries[keyCount] = entry;
+        keyCount++;
+        keyStarts[keyCount] = start + key.length;
+    }
+
+    /**
+     * Number of entries.
+     * @return entry count.
+     */
+    public int size() {
+        return count;
+    }
+
+    public IndexMode getMode() {
+        return mode;
+    }
+
+    public String getHeadWord(final int entry) {
+        int key = headWordKeys[entry];
+        return new String(pool, keyStarts[key], keyStarts[key + 1] - keyStarts[key], StandardCharsets.UTF_8);
+    }
+
+    public long getOffset(final int entry) {
+        return offsets[entry];
+    }
+
+    public int getSize(final int entry) {
+        return sizes[entry];
+    }
+
+    public long getHeaderOffset(final int entry) {
+        return headerOffsets[entry];
+    }
+
+    public int getHeaderSize(final int entry) {
+        return headerSizes[entry];
+    }
+
+    long[] offsetArray() {
+        return Arrays.copyOf(offsets, count);
+    }
+
+    int[] sizeArray() {
+        return Arrays.copyOf(sizes, count);
+    }
+
+    long[] headerOffsetArray() {
+        return Arrays.copyOf(headerOffsets, count);
+    }
+
+    int[] headerSizeArray() {
+        return Arrays.copyOf(headerSizes, count);
+    }
+
+    int headWordKey(final int entry) {
+        return headWordKeys[entry];
+    }
+
+    /**
+     * Key indexed in case folded mode, that is the last key of entry.
+     */
+    int foldedKey(final int entry) {
+        if (entry + 1 < count) {
+            return headWordKeys[entry + 1] - 1;
+        }
+        return keyCount - 1;
+    }
+
+    int getMark(final int entry) {
+        return marks[entry];
+    }
+
+    /**
+     * Number of keys; an entry has one or two keys.
+     */
+    int keyCount() {
+        return keyCount;
+    }
+
+    int keyEntry(final int key) {
+        return keyEntries[key];
+    }
+
+    int keyStart(final int key) {
+        return keyStarts[key];
+    }
+
+    int keyEnd(final int key) {
+        return keyStarts[key + 1];
+    }
+
+    byte[] pool() {
+        return pool;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        EntryTable that = (EntryTable) o;
+        if (mode != that.mode || count != that.count || keyCount != that.keyCount) {
+            return false;
+        }
+        return Arrays.equals(offsetArray(), that.offsetArray()) && Arrays.equals(sizeArray(), that.sizeArray())
+                && Arrays.equals(headerOffsetArray(), that.headerOffsetArray())
+                && Arrays.equals(headerSizeArray(), that.headerSizeArray())
+                && Arrays.equals(Arrays.copyOf(headWordKeys, count), Arrays.copyOf(that.headWordKeys, count))
+                && Arrays.equals(Arrays.copyOf(marks, Math.min(count, marks.length)),
+                Arrays.copyOf(that.marks, Math.min(count, that.marks.length)))
+                && Arrays.equals(Arrays.copyOf(keyStarts, keyCount + 1), Arrays.copyOf(that.keyStarts, keyCount + 1))
+                && Arrays.equals(Arrays.copyOf(pool, keyStarts[keyCount]),
+                Arrays.copyOf(that.pool, that.keyStarts[keyCount]));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = count;
+        result = 31 * result + Arrays.hashCode(offsetArray());
+        result = 31 * result + Arrays.hashCode(Arrays.copyOf(pool, keyStarts[keyCount]));
+        return result;
+    }
+}
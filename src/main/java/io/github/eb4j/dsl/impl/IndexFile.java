@@ -0,0 +1,512 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.dsl.impl;
+
+import io.github.eb4j.dsl.data.DslDictionaryProperty;
+import io.github.eb4j.dsl.data.IndexMode;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Index cache file, version 5.
+ * <p>
+ * The file is a header block followed by page aligned sections of
+ * little endian primitive arrays: base and check of DoubleArray, key
+ * offsets, key bytes, posting starts, postings, five entry columns, and
+ * case marks, variant offsets and variant bytes, which are empty unless
+ * index is case folded.
+ * Sections are mapped with FileChannel.map(), so opening an index does
+ * not deserialize nor copy anything to heap.
+ * <p>
+ * The header block has magic, index version, length of header block,
+ * trie version, a table of section offsets and lengths, and then validation
+ * fields, index mode and property fields.
+ * <p>
+ * Trie layout has its own version. When only the trie version differs,
+ * other sections are still used and the trie is rebuilt from the stored
+ * keys, without scanning dictionary again. Such an index is read to heap
+ * instead of mapped, as it is written again to the same file.
+ */
+public final class IndexFile {
+
+    /** Version of index file format. */
+    public static final int INDEX_VERSION = 5;
+
+    private static final byte[] MAGIC = "DSL4JIDX".getBytes(StandardCharsets.US_ASCII);
+    private static final int PAGE_SIZE = 4096;
+    private static final int SECTIONS = 14;
+    private static final int FIXED_HEADER_SIZE = MAGIC.length + 4 * 4 + SECTIONS * 16;
+
+    private final String filename;
+    private final String parentPath;
+    private final long filesize;
+    private final long lastModifiedTime;
+    private final DslDictionaryProperty property;
+    private final IndexMode mode;
+    private final PackedIndex index;
+    private final boolean trieRebuilt;
+
+    public IndexFile(@NotNull final String filename, @NotNull final String parentPath, final long filesize,
+                     final long lastModifiedTime, @NotNull final DslDictionaryProperty property,
+                     @NotNull final PackedIndex index) {
+        this.filename = filename;
+        this.parentPath = parentPath;
+        this.filesize = filesize;
+        this.lastModifiedTime = lastModifiedTime;
+        this.property = property;
+        this.mode = index.getMode();
+        this.index = index;
+        this.trieRebuilt = false;
+    }
+
+    /**
+     * Constructor of header read from file, without index.
+     */
+    private IndexFile(final String filename, final String parentPath, final long filesize,
+                      final long lastModifiedTime, final DslDictionaryProperty property, final IndexMode mode) {
+        this.filename = filename;
+        this.parentPath = parentPath;
+        this.filesize = filesize;
+        this.lastModifiedTime = lastModifiedTime;
+        this.property = property;
+        this.mode = mode;
+        this.index = null;
+        this.trieRebuilt = false;
+    }
+
+    /**
+     * Constructor of header with index read from file.
+     */
+    private IndexFile(final IndexFile header, final PackedIndex index, final boolean trieRebuilt) {
+        this.filename = header.filename;
+        this.parentPath = header.parentPath;
+        this.filesize = header.filesize;
+        this.lastModifiedTime = header.lastModifiedTime;
+        this.property = header.property;
+        this.mode = header.mode;
+        this.index = index;
+        this.trieRebuilt = trieRebuilt;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public String getParentPath() {
+        return parentPath;
+    }
+
+    public long getFilesize() {
+        return filesize;
+    }
+
+    public long getLastModifiedTime() {
+        return lastModifiedTime;
+    }
+
+    public DslDictionaryProperty getProperty() {
+        return property;
+    }
+
+    /**
+     * Getter of index mode, which is known before index is mapped.
+     * @return index mode.
+     */
+    public IndexMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Getter of index.
+     * @return index, or null for a header given to validator of {@link #read(Path, Predicate)}.
+     */
+    public PackedIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Whether trie was rebuilt on read because its version is different.
+     * @return true when index file should be written again.
+     */
+    public boolean isTrieRebuilt() {
+        return trieRebuilt;
+    }
+
+    /**
+     * Open index file and map its sections.
+     * @param path index file.
+     * @return IndexFile object.
+     * @throws IOException when I/O error occurred, or file is not a valid index of this version.
+     */
+    public static IndexFile read(@NotNull final Path path) throws IOException {
+        return read(path, null);
+    }
+
+    /**
+     * Open index file, and map its sections when header is accepted.
+     * <p>
+     * Header is read without mapping, so a rejected index file holds no mapping, which would
+     * prevent the file from being replaced by a new index on some platforms.
+     * @param path index file.
+     * @param validator check of header, which gets an IndexFile without index, or null to accept any.
+     * @return IndexFile object, or null when validator rejects the header.
+     * @throws IOException when I/O error occurred, or file is not a valid index of this version.
+     */
+    @Nullable
+    public static IndexFile read(@NotNull final Path path, @Nullable final Predicate<IndexFile> validator)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer fixed = readFully(channel, 0, FIXED_HEADER_SIZE);
+            byte[] magic = new byte[MAGIC.length];
+            fixed.get(magic);
+            if (!Arrays.equals(MAGIC, magic) || fixed.getInt() != INDEX_VERSION) {
+                throw new IOException("Unsupported index file.");
+            }
+            int headerSize = fixed.getInt();
+            int trieVersion = fixed.getInt();
+            int sectionCount = fixed.getInt();
+            if (sectionCount != SECTIONS || headerSize < FIXED_HEADER_SIZE) {
+                throw new IOException("Broken index file.");
+            }
+            long fileSize = channel.size();
+            long[] offsets = new long[SECTIONS];
+            long[] lengths = new long[SECTIONS];
+            for (int i = 0; i < SECTIONS; i++) {
+                offsets[i] = fixed.getLong();
+                lengths[i] = fixed.getLong();
+                if (offsets[i] < headerSize || lengths[i] < 0 || lengths[i] > Integer.MAX_VALUE
+                        || offsets[i] + lengths[i] > fileSize) {
+                    throw new IOException("Broken index file.");
+                }
+            }
+            ByteBuffer header = readFully(channel, FIXED_HEADER_SIZE, headerSize - FIXED_HEADER_SIZE);
+            long filesize = header.getLong();
+            long mtime = header.getLong();
+            int mode = header.getInt();
+            String filename = getString(header);
+            String parent = getString(header);
+            String name = getString(header);
+            String indexLanguage = getString(header);
+            String contentLanguage = getString(header);
+            String charset = getString(header);
+            byte[] eol = getBytes(header);
+            if (filename == null || parent == null || charset == null || eol == null
+                    || mode < 0 || mode >= IndexMode.values().length) {
+                throw new IOException("Broken index file.");
+            }
+            DslDictionaryProperty prop = new DslDictionaryProperty(name, indexLanguage, contentLanguage,
+                    Charset.forName(charset), eol);
+            IndexFile indexHeader = new IndexFile(filename, parent, filesize, mtime, prop, IndexMode.values()[mode]);
+            if (validator != null && !validator.test(indexHeader)) {
+                return null;
+            }
+            boolean staleTrie = trieVersion != DoubleArray.VERSION;
+            ByteBuffer[] sections = new ByteBuffer[SECTIONS];
+            for (int i = 0; i < SECTIONS; i++) {
+                if (!staleTrie) {
+                    sections[i] = map(channel, offsets[i], lengths[i]);
+                } else if (i > 1) {
+                    // file is written again with new trie, so sections are not served from a mapping of it
+                    sections[i] = readFully(channel, offsets[i], (int) lengths[i]);
+                } else {
+                    sections[i] = ByteBuffer.allocate(0);
+                }
+            }
+            PackedIndex index = toIndex(sections, indexHeader.getMode(), staleTrie);
+            return new IndexFile(indexHeader, index, staleTrie);
+        } catch (RuntimeException e) {
+            throw new IOException("Broken index file.", e);
+        }
+    }
+
+    private static PackedIndex toIndex(final ByteBuffer[] sections, final IndexMode mode, final boolean staleTrie)
+            throws IOException {
+        IntBuffer keyOffsets = sections[2].asIntBuffer();
+        ByteBuffer keyBytes = sections[3];
+        IntBuffer postingStarts = sections[4].asIntBuffer();
+        IntBuffer postings = sections[5].asIntBuffer();
+        LongBuffer offsets = sections[6].asLongBuffer();
+        IntBuffer sizes = sections[7].asIntBuffer();
+        LongBuffer headerOffsets = sections[8].asLongBuffer();
+        IntBuffer headerSizes = sections[9].asIntBuffer();
+        IntBuffer entryKeys = sections[10].asIntBuffer();
+        int entries = offsets.limit();
+        if (keyOffsets.limit() == 0
+                || keyOffsets.limit() != postingStarts.limit()
+                || keyOffsets.get(keyOffsets.limit() - 1) != keyBytes.limit()
+                || postingStarts.get(postingStarts.limit() - 1) != postings.limit()
+                || sizes.limit() != entries || headerOffsets.limit() != entries || headerSizes.limit() != entries
+                || entryKeys.limit() != entries) {
+            throw new IOException("Broken index file.");
+        }
+        DoubleArray trie;
+        if (staleTrie) {
+            trie = DoubleArrayBuilder.build(keyOffsets, keyBytes);
+        } else {
+            IntBuffer base = sections[0].asIntBuffer();
+            IntBuffer check = sections[1].asIntBuffer();
+            if (base.limit() != check.limit() || base.limit() == 0) {
+                throw new IOException("Broken index file.");
+            }
+            trie = new DoubleArray(base, check);
+        }
+        CaseMarks caseMarks = null;
+        if (mode == IndexMode.CASE_FOLDED) {
+            IntBuffer marks = sections[11].asIntBuffer();
+            IntBuffer variantOffsets = sections[12].asIntBuffer();
+            ByteBuffer variantBytes = sections[13];
+            if (marks.limit() != entries || variantOffsets.limit() == 0
+                    || variantOffsets.get(variantOffsets.limit() - 1) != variantBytes.limit()) {
+                throw new IOException("Broken index file.");
+            }
+            caseMarks = new CaseMarks(marks, variantOffsets, variantBytes);
+        }
+        return new PackedIndex(trie, keyOffsets, keyBytes, postingStarts, postings,
+                offsets, sizes, headerOffsets, headerSizes, entryKeys, caseMarks);
+    }
+
+    /**
+     * Write index file.
+     * <p>
+     * Content is written to a temporary file in the same directory and moved to the
+     * target, so a mapped older index is never truncated under its readers.
+     * @param path index file.
+     * @throws IOException when I/O error occurred.
+     */
+    public void write(@NotNull final Path path) throws IOException {
+        ByteBuffer variable = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        variable = putLong(variable, filesize);
+        variable = putLong(variable, lastModifiedTime);
+        variable = putInt(variable, index.getMode().ordinal());
+        variable = putString(variable, filename);
+        variable = putString(variable, parentPath);
+        variable = putString(variable, property.getDictionaryName());
+        variable = putString(variable, property.getIndexLanguage());
+        variable = putString(variable, property.getContentLanguage());
+        variable = putString(variable, property.getCharset().name());
+        variable = putBytes(variable, property.getEol());
+        variable.flip();
+        int headerSize = FIXED_HEADER_SIZE + variable.remaining();
+
+        CaseMarks caseMarks = index.getCaseMarks();
+        if (caseMarks == null) {
+            caseMarks = new CaseMarks(IntBuffer.allocate(0), IntBuffer.allocate(0), ByteBuffer.allocate(0));
+        }
+        Buffer[] sections = {index.getTrie().getBase(), index.getTrie().getCheck(), index.getKeyOffsets(),
+                index.getKeyBytes(), index.getPostingStarts(), index.getPostings(), index.getOffsets(),
+                index.getSizes(), index.getHeaderOffsets(), index.getHeaderSizes(), index.getEntryKeys(),
+                caseMarks.getMarks(), caseMarks.getVariantOffsets(), caseMarks.getVariantBytes()};
+        ByteBuffer fixed = ByteBuffer.allocate(FIXED_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        fixed.put(MAGIC).putInt(INDEX_VERSION).putInt(headerSize).putInt(DoubleArray.VERSION).putInt(SECTIONS);
+        long offset = align(headerSize);
+        for (Buffer section : sections) {
+            long length = (long) section.limit() * elementSize(section);
+            fixed.putLong(offset).putLong(length);
+            offset = align(offset + length);
+        }
+        fixed.flip();
+
+        // unique name, so that concurrent writers of same index do not share a temporary file
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                writeFully(channel, fixed);
+                writeFully(channel, variable);
+                ByteBuffer buf = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+                for (Buffer section : sections) {
+                    pad(channel, buf);
+                    writeSection(channel, buf, section);
+                }
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static int elementSize(final Buffer section) {
+        if (section instanceof LongBuffer) {
+            return Long.BYTES;
+        } else if (section instanceof IntBuffer) {
+            return Integer.BYTES;
+        }
+        return 1;
+    }
+
+    private static long align(final long position) {
+        return (position + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+    }
+
+    private static void pad(final FileChannel channel, final ByteBuffer buf) throws IOException {
+        long position = channel.position();
+        buf.clear();
+        buf.limit((int) (align(position) - position));
+        writeFully(channel, buf);
+        buf.clear();
+    }
+
+    private static void writeSection(final FileChannel channel, final ByteBuffer buf, final Buffer section)
+            throws IOException {
+        int size = section.limit();
+        if (section instanceof LongBuffer) {
+            LongBuffer longs = (LongBuffer) section;
+            for (int i = 0; i < size; i++) {
+                flushIfFull(channel, buf);
+                buf.putLong(longs.get(i));
+            }
+        } else if (section instanceof IntBuffer) {
+            IntBuffer ints = (IntBuffer) section;
+            for (int i = 0; i < size; i++) {
+                flushIfFull(channel, buf);
+                buf.putInt(ints.get(i));
+            }
+        } else {
+            ByteBuffer bytes = (ByteBuffer) section;
+            for (int i = 0; i < size; i++) {
+                flushIfFull(channel, buf);
+                buf.put(bytes.get(i));
+            }
+        }
+        buf.flip();
+        writeFully(channel, buf);
+        buf.clear();
+    }
+
+    private static void flushIfFull(final FileChannel channel, final ByteBuffer buf) throws IOException {
+        if (buf.remaining() < Long.BYTES) {
+            buf.flip();
+            writeFully(channel, buf);
+            buf.clear();
+        }
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    private static ByteBuffer map(final FileChannel channel, final long offset, final long length)
+            throws IOException {
+        if (length == 0) {
+            return ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer readFully(final FileChannel channel, final long position, final int length)
+            throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        long pos = position;
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, pos);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of index file.");
+            }
+            pos += n;
+        }
+        buf.flip();
+        return buf;
+    }
+
+    private static ByteBuffer ensure(final ByteBuffer buf, final int length) {
+        if (buf.remaining() >= length) {
+            return buf;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + length))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buf.flip();
+        grown.put(buf);
+        return grown;
+    }
+
+    private static ByteBuffer putInt(final ByteBuffer buf, final int value) {
+        ByteBuffer result = ensure(buf, Integer.BYTES);
+        result.putInt(value);
+        return result;
+    }
+
+    private static ByteBuffer putLong(final ByteBuffer buf, final long value) {
+        ByteBuffer result = ensure(buf, Long.BYTES);
+        result.putLong(value);
+        return result;
+    }
+
+    private static ByteBuffer putString(final ByteBuffer buf, @Nullable final String value) {
+        if (value == null) {
+            return putBytes(buf, null);
+        }
+        return putBytes(buf, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ByteBuffer putBytes(final ByteBuffer buf, @Nullable final byte[] value) {
+        if (value == null) {
+            ByteBuffer result = ensure(buf, Integer.BYTES);
+            result.putInt(-1);
+            return result;
+        }
+        ByteBuffer result = ensure(buf, Integer.BYTES + value.length);
+        result.putInt(value.length);
+        result.put(value);
+        return result;
+    }
+
+    @Nullable
+    private static String getString(final ByteBuffer buf) {
+        byte[] bytes = getBytes(buf);
+        if (bytes == null) {
+            return null;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Nullable
+    private static byte[] getBytes(final ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.dsl.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Block source of plain DSL file backed by memory mapped segments.
+ * <p>
+ * Files larger than a segment are mapped in several pieces, because a
+ * MappedByteBuffer cannot address more than 2GB. All segments are mapped
+ * on open, which reads nothing, so {@link #getBlock(int)} needs no lock.
+ */
+public final class MappedBlockSource implements BlockSource {
+
+    static final int SEGMENT_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final long length;
+    private final MappedByteBuffer[] segments;
+
+    private final int segmentSize;
+
+    public MappedBlockSource(final Path path) throws IOException {
+        this(path, SEGMENT_SIZE);
+    }
+
+    MappedBlockSource(final Path path, final int segmentSize) throws IOException {
+        this.segmentSize = segmentSize;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            length = channel.size();
+            segments = new MappedByteBuffer[(int) ((length + segmentSize - 1) / segmentSize)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentSize, length - start));
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int blockSize() {
+        return segmentSize;
+    }
+
+    @Override
+    public int blockCount() {
+        return segments.length;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public ByteBuffer getBlock(final int index) {
+        if (index < 0 || index >= segments.length) {
+            return null;
+        }
+        return segments[index].duplicate();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.dsl.impl;
+
+import io.github.eb4j.dsl.data.IndexMode;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Dictionary index in packed primitive arrays.
+ * <p>
+ * Keys are numbered by DoubleArray in sorted order. Key {@code id} has
+ * postings from {@code postingStart[id]} to {@code postingStart[id + 1]},
+ * and each posting is an index into entry columns, which hold offsets and
+ * sizes of article and header in dictionary file, and id of the key holding
+ * headword of entry, so headwords are served without reading dictionary.
+ * <p>
+ * Every array is a buffer read with absolute get, so index is same
+ * whether it is built on heap or mapped from index file.
+ * <p>
+ * In case folded mode, each entry has only its folded key, and CaseMarks
+ * restores original headword of entry.
+ */
+public final class PackedIndex {
+
+    private final DoubleArray trie;
+    private final IntBuffer keyOffsets;
+    private final ByteBuffer keyBytes;
+    private final IntBuffer postingStarts;
+    private final IntBuffer postings;
+    private final LongBuffer offsets;
+    private final IntBuffer sizes;
+    private final LongBuffer headerOffsets;
+    private final IntBuffer headerSizes;
+    private final IntBuffer entryKeys;
+    @Nullable
+    private final CaseMarks caseMarks;
+
+    @SuppressWarnings("ParameterNumber")
+    PackedIndex(final DoubleArray trie, final IntBuffer keyOffsets, final ByteBuffer keyBytes,
+                final IntBuffer postingStarts, final IntBuffer postings, final LongBuffer offsets,
+                final IntBuffer sizes, final LongBuffer headerOffsets, final IntBuffer headerSizes,
+                final IntBuffer entryKeys, @Nullable final CaseMarks caseMarks) {
+        this.trie = trie;
+        this.keyOffsets = keyOffsets;
+        this.keyBytes = keyBytes;
+        this.postingStarts = postingStarts;
+        this.postings = postings;
+        this.offsets = offsets;
+        this.sizes = sizes;
+        this.headerOffsets = headerOffsets;
+        this.headerSizes = headerSizes;
+        this.entryKeys = entryKeys;
+        this.caseMarks = caseMarks;
+    }
+
+    /**
+     * How keys are stored.
+     * @return index mode.
+     */
+    public IndexMode getMode() {
+        if (caseMarks == null) {
+            return IndexMode.STANDARD;
+        }
+        return IndexMode.CASE_FOLDED;
+    }
+
+    /**
+     * Number of unique keys.
+     * @return key count.
+     */
+    public int keyCount() {
+        return keyOffsets.limit() - 1;
+    }
+
+    /**
+     * Number of entries.
+     * @return entry count.
+     */
+    public int entryCount() {
+        return offsets.limit();
+    }
+
+    /**
+     * Find key.
+     * @param key key string.
+     * @return key id, or -1 when not found.
+     */
+    public int find(final String key) {
+        return trie.get(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Find keys starting with prefix.
+     * @param prefix prefix string.
+     * @return first key id and last key id + 1.
+     */
+    public int[] findPrefix(final String prefix) {
+        return trie.prefixRange(prefix.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get key string.
+     * @param id key id.
+     * @return key.
+     */
+    public String getKey(final int id) {
+        int start = keyOffsets.get(id);
+        byte[] bytes = new byte[keyOffsets.get(id + 1) - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = keyBytes.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get headword of entry.
+     * <p>
+     * In standard mode, it is the key itself, that is the headword or its lower case.
+     * @param key key string of entry.
+     * @param entry entry index.
+     * @return headword in original case.
+     */
+    public String getHeadWord(final String key, final int entry) {
+        if (caseMarks == null) {
+            return key;
+        }
+        return caseMarks.restore(key, entry);
+    }
+
+    /**
+     * Get headword of entry from its key.
+     * @param entry entry index.
+     * @return headword in original case.
+     */
+    public String getHeadWord(final int entry) {
+        return getHeadWord(getKey(entryKeys.get(entry)), entry);
+    }
+
+    /**
+     * Get headwords of the card holding entry.
+     * <p>
+     * Entries of a card are consecutive and share the header, so headwords of
+     * neighbour entries with same header are joined by LF, in order of the card.
+     * @param entry entry index.
+     * @return headword lines of card.
+     */
+    public String getCardHeadWords(final int entry) {
+        long header = headerOffsets.get(entry);
+        if (headerSizes.get(entry) == 0) {
+            return getHeadWord(entry);
+        }
+        int first = entry;
+        while (first > 0 && headerOffsets.get(first - 1) == header && headerSizes.get(first - 1) != 0) {
+            first--;
+        }
+        int last = entry + 1;
+        while (last < entryCount() && headerOffsets.get(last) == header && headerSizes.get(last) != 0) {
+            last++;
+        }
+        if (last - first == 1) {
+            return getHeadWord(entry);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int e = first; e < last; e++) {
+            if (e > first) {
+                sb.append('\n');
+            }
+            sb.append(getHeadWord(e));
+        }
+        return sb.toString();
+    }
+
+    public int postingStart(final int id) {
+        return postingStarts.get(id);
+    }
+
+    public int postingEnd(final int id) {
+        return postingStarts.get(id + 1);
+    }
+
+    /**
+     * Get entry of posting.
+     * @param posting position in postings.
+     * @return entry index.
+     */
+    public int getEntry(final int posting) {
+        return postings.get(posting);
+    }
+
+    public long getOffset(final int entry) {
+        return offsets.get(entry);
+    }
+
+    public int getSize(final int entry) {
+        return sizes.get(entry);
+    }
+
+    public long getHeaderOffset(final int entry) {
+        return headerOffsets.get(entry);
+    }
+
+    public int getHeaderSize(final int entry) {
+        return headerSizes.get(entry);
+    }
+
+    DoubleArray getTrie() {
+        return trie;
+    }
+
+    IntBuffer getKeyOffsets() {
+        return keyOffsets;
+    }
+
+    ByteBuffer getKeyBytes() {
+        return keyBytes;
+    }
+
+    IntBuffer getPostingStarts() {
+        return postingStarts;
+    }
+
+    IntBuffer getPostings() {
+        return postings;
+    }
+
+    LongBuffer getOffsets() {
+        return offsets;
+    }
+
+    IntBuffer getSizes() {
+        return sizes;
+    }
+
+    LongBuffer getHeaderOffsets() {
+        return headerOffsets;
+    }
+
+    IntBuffer getHeaderSizes() {
+        return headerSizes;
+    }
+
+    IntBuffer getEntryKeys() {
+        return entryKeys;
+    }
+
+    @Nullable
+    CaseMarks getCaseMarks() {
+        return caseMarks;
+    }
+
+    /**
+     * Build index from entries.
+     * <p>
+     * In standard mode, each headword is indexed also in lower case when it is different.
+     * In case folded mode, only folded headword is indexed.
+     * Postings of a key keep the order of entries.
+     * @param table table of entries.
+     * @return PackedIndex object on heap.
+     */
+    public static PackedIndex build(final EntryTable table) {
+        boolean folded = table.getMode() == IndexMode.CASE_FOLDED;
+        byte[] pool = table.pool();
+        int refCount;
+        int[] order;
+        if (folded) {
+            refCount = table.size();
+            order = new int[refCount];
+            for (int i = 0; i < refCount; i++) {
+                order[i] = table.foldedKey(i);
+            }
+        } else {
+            refCount = table.keyCount();
+            order = new int[refCount];
+            for (int i = 0; i < refCount; i++) {
+                order[i] = i;
+            }
+        }
+        // stable sort keeps entry order in postings of same key
+        sort(table, order, new int[refCount], 0, refCount);
+
+        int[] postingArray = new int[refCount];
+        int[] entryKeyArray = new int[table.size()];
+        int[] postingStartArray = new int[refCount + 1];
+        int[] keyOffsetArray = new int[refCount + 1];
+        byte[] keyByteArray = new byte[pool.length];
+        int keyCount = 0;
+        int pos = 0;
+        int prev = -1;
+        for (int i = 0; i < refCount; i++) {
+            int ref = order[i];
+            if (prev < 0 || compareKeys(table, prev, ref) != 0) {
+                int start = table.keyStart(ref);
+                int length = table.keyEnd(ref) - start;
+                postingStartArray[keyCount] = i;
+                keyOffsetArray[keyCount++] = pos;
+                System.arraycopy(pool, start, keyByteArray, pos, length);
+                pos += length;
+                prev = ref;
+            }
+            int entry = table.keyEntry(ref);
+            postingArray[i] = entry;
+            if (folded || ref == table.headWordKey(entry)) {
+                entryKeyArray[entry] = keyCount - 1;
+            }
+        }
+        postingStartArray[keyCount] = refCount;
+        keyOffsetArray[keyCount] = pos;
+
+        IntBuffer keyOffsets = IntBuffer.wrap(keyOffsetArray, 0, keyCount + 1).slice();
+        ByteBuffer keyBytes = ByteBuffer.wrap(keyByteArray, 0, pos).slice();
+        CaseMarks caseMarks = null;
+        if (folded) {
+            caseMarks = buildCaseMarks(table);
+        }
+        return new PackedIndex(DoubleArrayBuilder.build(keyOffsets, keyBytes), keyOffsets, keyBytes,
+                IntBuffer.wrap(postingStartArray, 0, keyCount + 1).slice(), IntBuffer.wrap(postingArray),
+                LongBuffer.wrap(table.offsetArray()), IntBuffer.wrap(table.sizeArray()),
+                LongBuffer.wrap(table.headerOffsetArray()), IntBuffer.wrap(table.headerSizeArray()),
+                IntBuffer.wrap(entryKeyArray), caseMarks);
+    }
+
+    /**
+     * Copy marks of entries, and headwords of entries marked as variant.
+     */
+    private static CaseMarks buildCaseMarks(final EntryTable table) {
+        int count = table.size();
+        byte[] pool = table.pool();
+        int[] marks = new int[count];
+        int variants = 0;
+        int variantLength = 0;
+        for (int i = 0; i < count; i++) {
+            marks[i] = table.getMark(i);
+            if (marks[i] == CaseMarks.VARIANT) {
+                variants++;
+                variantLength += table.keyEnd(table.headWordKey(i)) - table.keyStart(table.headWordKey(i));
+            }
+        }
+        int[] variantOffsets = new int[variants + 1];
+        byte[] variantBytes = new byte[variantLength];
+        int variant = 0;
+        int pos = 0;
+        for (int i = 0; i < count; i++) {
+            if (marks[i] == CaseMarks.VARIANT) {
+                int key = table.headWordKey(i);
+                int length = table.keyEnd(key) - table.keyStart(key);
+                System.arraycopy(pool, table.keyStart(key), variantBytes, pos, length);
+                variantOffsets[variant] = pos;
+                marks[i] = -variant - 1;
+                variant++;
+                pos += length;
+            }
+        }
+        variantOffsets[variants] = pos;
+        return new CaseMarks(IntBuffer.wrap(marks), IntBuffer.wrap(variantOffsets), ByteBuffer.wrap(variantBytes));
+    }
+
+    /**
+     * Merge sort of key references, which is stable.
+     */
+    private static void sort(final EntryTable table, final int[] refs, final int[] work, final int from,
+                             final int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sort(table, refs, work, from, mid);
+        sort(table, refs, work, mid, to);
+        if (compareKeys(table, refs[mid - 1], refs[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(refs, from, work, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || i < mid && compareKeys(table, work[i], work[j]) <= 0) {
+                refs[k] = work[i++];
+            } else {
+                refs[k] = work[j++];
+            }
+        }
+    }
+
+    /**
+     * Compare keys in table as unsigned bytes.
+     */
+    private static int compareKeys(final EntryTable table, final int a, final int b) {
+        byte[] pool = table.pool();
+        int aStart = table.keyStart(a);
+        int aLength = table.keyEnd(a) - aStart;
+        int bStart = table.keyStart(b);
+        int bLength = table.keyEnd(b) - bStart;
+        int len = Math.min(aLength, bLength);
+        for (int i = 0; i < len; i++) {
+            int c = (pool[aStart + i] & 0xff) - (pool[bStart + i] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return aLength - bLength;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * DSL4J, a parser library for LingoDSL format.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.dsl.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache segment with window TinyLFU eviction.
+ * <p>
+ * New entries enter a window LRU of 1% of capacity. Entries leaving the window are
+ * candidates to the main area, a segmented LRU of probation and protected queues.
+ * When the main area is over capacity, a candidate and the least recently used entry
+ * of probation are compared by estimated frequency and the less frequent one is evicted.
+ * An entry hit in probation moves to protected, which holds up to 80% of the main area.
+ * @param <V> type of value.
+ */
+final class TinyLfuSegment<V> implements BoundedCache.Segment<V> {
+
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+    private static final int PERCENT = 100;
+
+    private final Map<Long, Node<V>> map = new HashMap<>();
+    private final FrequencySketch sketch;
+    private final long capacity;
+    private final long windowMax;
+    private final long protectedMax;
+    private final Queue<V> window = new Queue<>();
+    private final Queue<V> probation = new Queue<>();
+    private final Queue<V> protect = new Queue<>();
+
+    TinyLfuSegment(final long capacity, final long expectedEntries) {
+        this.capacity = capacity;
+        windowMax = capacity * WINDOW_PERCENT / PERCENT;
+        protectedMax = (capacity - windowMax) * PROTECTED_PERCENT / PERCENT;
+        sketch = new FrequencySketch(expectedEntries);
+    }
+
+    @Override
+    public synchronized V get(final long key) {
+        sketch.increment(key);
+        Node<V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        onHit(node);
+        return node.value;
+    }
+
+    @Override
+    public synchronized int put(final long key, final V value, final int weight) {
+        if (weight > capacity) {
+            return 0;
+        }
+        Node<V> node = map.get(key);
+        if (node != null) {
+            node.queue.weight += weight - node.weight;
+            node.value = value;
+            node.weight = weight;
+            onHit(node);
+        } else {
+            node = new Node<>(key, value, weight);
+            map.put(key, node);
+            window.addLast(node);
+        }
+        return evict();
+    }
+
+    private void onHit(final Node<V> node) {
+        Queue<V> queue = node.queue;
+        queue.remove(node);
+        if (queue == probation) {
+            protect.addLast(node);
+            while (protect.weight > protectedMax) {
+                Node<V> demoted = protect.first();
+                protect.remove(demoted);
+                probation.addLast(demoted);
+            }
+        } else {
+            queue.addLast(node);
+        }
+    }
+
+    /**
+     * Move overflow of window to probation, then evict from main area.
+     */
+    private int evict() {
+        Node<V> candidate = null;
+        while (window.weight > windowMax) {
+            Node<V> node = window.first();
+            window.remove(node);
+            probation.addLast(node);
+            if (candidate == null) {
+                candidate = node;
+            }
+        }
+        int evicted = 0;
+        while (window.weight + probation.weight + protect.weight > capacity) {
+            Node<V> victim = probation.first();
+            if (victim == null) {
+                victim = protect.first();
+            }
+            if (candidate != null && victim != candidate
+                    && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                remove(victim);
+            } else if (candidate != null) {
+                Node<V> next = candidate.next;
+                remove(candidate);
+                candidate = next;
+            } else {
+                remove(victim);
+            }
+            evicted++;
+        }
+        return evicted;
+    }
+
+    private void remove(final Node<V> node) {
+        node.queue.remove(node);
+        map.remove(node.key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        map.clear();
+        window.clear();
+        probation.clear();
+        protect.clear();
+    }
+
+    @Override
+    public synchronized long weight() {
+        return window.weight + probation.weight + protect.weight;
+    }
+
+    private static final class Node<V> {
+        private final long key;
+        private V value;
+        private int weight;
+        private Queue<V> queue;
+        private Node<V> prev;
+        private Node<V> next;
+
+        Node(final long key, final V value, final int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Doubly linked queue of nodes with total weight, least recently used first.
+     * @param <V> type of value.
+     */
+    private static final class Queue<V> {
+        private Node<V> head;
+        private Node<V> tail;
+        private long weight;
+
+        Node<V> first() {
+            return head;
+        }
+
+        void addLast(final Node<V> node) {
+            node.queue = this;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            weight += node.weight;
+        }
+
+        void remove(final Node<V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.queue = null;
+            weight -= node.weight;
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+            weight = 0;
+        }
+    }
+}
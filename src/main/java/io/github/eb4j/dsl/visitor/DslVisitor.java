@@ -89,6 +89,20 @@ public abstract class DslVisitor<T> {
         finish();
     }
 
+    /**
+     * Whether visitor can be called while article is parsed.
+     * <p>
+     * A streaming visitor renders each element on its own, does not override
+     * {@link #visit(DslArticle)} nor {@link #visit(DslArticle.ElementSequence)}, and resets
+     * its state in {@link #start()}. Such a visitor gets elements as they are parsed, without
+     * a tree of article. When an article fails to parse after some elements, it is skipped,
+     * and elements already visited are discarded by next start().
+     * @return true when visitor is streaming, default is false.
+     */
+    public boolean isStreaming() {
+        return false;
+    }
+
     /** Start. */
     public void start() {
     }
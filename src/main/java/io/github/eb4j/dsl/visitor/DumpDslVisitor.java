@@ -49,9 +49,19 @@ public class DumpDslVisitor extends DslVisitor<String> {
      */
     @Override
     public void start() {
+        out.flush();
         baos.reset();
     }
 
+    /**
+     * Streaming only when not subclassed, as a subclass may override visit of article or sequence.
+     * @return true when visitor is exactly DumpDslVisitor.
+     */
+    @Override
+    public boolean isStreaming() {
+        return getClass() == DumpDslVisitor.class;
+    }
+
     /**
      * Finish dumping.
      */
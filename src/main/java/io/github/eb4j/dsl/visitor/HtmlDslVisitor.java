@@ -19,13 +19,14 @@
 package io.github.eb4j.dsl.visitor;
 
 import io.github.eb4j.dsl.DslArticle;
+import io.github.eb4j.dsl.DslArticle.TagId;
 import io.github.eb4j.dsl.data.LanguageCode;
 import io.github.eb4j.dsl.data.LanguageName;
 import org.apache.commons.io.FilenameUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 
 /**
@@ -38,8 +39,8 @@ import java.util.Map;
 public class HtmlDslVisitor extends DslVisitor<String> {
 
     private static final String[] IMAGE_EXTS = new String[] {"png", "jpg", "PNG", "JPG", "jpeg"};
-    private static final Map<String, String> TAGMAP = new HashMap<>();
-    private static final Map<String, String> ENDTAGMAP = new HashMap<>();
+    private static final Map<TagId, String> TAGMAP = new EnumMap<>(TagId.class);
+    private static final Map<TagId, String> ENDTAGMAP = new EnumMap<>(TagId.class);
     private final LanguageCode langCode = new LanguageCode();
     private final LanguageName langName = new LanguageName();
 
@@ -74,6 +75,17 @@ public class HtmlDslVisitor extends DslVisitor<String> {
     @Override
     public void start() {
         sb = new StringBuilder();
+        specialTag = false;
+        current = null;
+    }
+
+    /**
+     * Streaming only when not subclassed, as a subclass may override visit of article or sequence.
+     * @return true when visitor is exactly HtmlDslVisitor.
+     */
+    @Override
+    public boolean isStreaming() {
+        return getClass() == HtmlDslVisitor.class;
     }
 
     @Override
@@ -87,39 +99,58 @@ public class HtmlDslVisitor extends DslVisitor<String> {
      */
     @Override
     public void visit(final DslArticle.Tag tag) {
-        if (TAGMAP.containsKey(tag.getTagName())) {
-            sb.append(TAGMAP.get(tag.getTagName()));
+        TagId id = tag.getTagId();
+        if (id == null) {
+            // Handle URL tag, which is not known by parser
+            if (tag.isTagName("url")) {
+                specialTag = true;
+            }
             return;
         }
-        // Handle URL and media tags
-        if (tag.isTagName("url") || tag.isTagName("s") || tag.isTagName("video")) {
-            specialTag = true;
+        String html = TAGMAP.get(id);
+        if (html != null) {
+            sb.append(html);
             return;
         }
-        // Handle color tags
-        if (tag.isTagName("c")) {
-            if (tag.hasAttribute()) {
-                sb.append("<span style=\"color: ").append(tag.getAttribute().getValue()).append("\">");
-            } else {
-                sb.append("<span style=\"color: green\">");
-            }
-        } else if (tag.isTagName("'")) {
-            sb.append("<span style=\"color: red\">");
-        } else if (tag.isTagName("lang")) {
-            if (tag.hasAttribute() && tag.getAttribute().getKey().equals("id")) {
-                int i = Integer.parseInt(tag.getAttribute().getValue());
-                if (langCode.containsKey(i)) {
-                    sb.append("<span class=\"lang_").append(langCode.get(i)).append("\">");
-                    return;
-                }
-            } else if (tag.hasAttribute() && tag.getAttribute().getKey().equals("name")) {
-                if (langName.containsKey(tag.getAttribute().getValue())) {
-                    sb.append("<span class=\"lang_").append(langName.get(tag.getAttribute().getValue())).append("\">");
-                    return;
+        switch (id) {
+            case S:
+            case VIDEO:
+                // Handle media tags
+                specialTag = true;
+                break;
+            case C:
+                // Handle color tags
+                if (tag.hasAttribute()) {
+                    sb.append("<span style=\"color: ").append(tag.getAttribute().getValue()).append("\">");
+                } else {
+                    sb.append("<span style=\"color: green\">");
                 }
+                break;
+            case STRESS:
+                sb.append("<span style=\"color: red\">");
+                break;
+            case LANG:
+                visitLang(tag);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void visitLang(final DslArticle.Tag tag) {
+        if (tag.hasAttribute() && tag.getAttribute().getKey().equals("id")) {
+            int i = Integer.parseInt(tag.getAttribute().getValue());
+            if (langCode.containsKey(i)) {
+                sb.append("<span class=\"lang_").append(langCode.get(i)).append("\">");
+                return;
+            }
+        } else if (tag.hasAttribute() && tag.getAttribute().getKey().equals("name")) {
+            if (langName.containsKey(tag.getAttribute().getValue())) {
+                sb.append("<span class=\"lang_").append(langName.get(tag.getAttribute().getValue())).append("\">");
+                return;
             }
-            sb.append("<span>");
         }
+        sb.append("<span>");
     }
 
     private String getMediaUrl() {
@@ -148,20 +179,24 @@ public class HtmlDslVisitor extends DslVisitor<String> {
                 // ignore tag when no content such as [url][/url], [s][/s]
                 return;
             }
-            if (endTag.isTagName("url")) {
-                sb.append("<a href=\"").append(current).append("\">").append(current).append("</a>");
-            } else if (endTag.isTagName("video") || (endTag.isTagName("s") && !isMediaImage())) {
+            TagId id = endTag.getTagId();
+            if (id == null) {
+                if (endTag.isTagName("url")) {
+                    sb.append("<a href=\"").append(current).append("\">").append(current).append("</a>");
+                }
+            } else if (id == TagId.VIDEO || (id == TagId.S && !isMediaImage())) {
                 // hyperlink when video or sound
                 sb.append("<a href=\"").append(getMediaUrl()).append("\">").append(current).append("</a>");
-            } else if (endTag.isTagName("s")) {
+            } else if (id == TagId.S) {
                 // img tag when image file
                 sb.append("<img src=\"").append(getMediaUrl()).append("\" />");
             }
             specialTag = false;
             current = null;
         }
-        if (ENDTAGMAP.containsKey(endTag.getTagName())) {
-            sb.append(ENDTAGMAP.get(endTag.getTagName()));
+        String html = ENDTAGMAP.get(endTag.getTagId());
+        if (html != null) {
+            sb.append(html);
         }
     }
 
@@ -211,34 +246,34 @@ public class HtmlDslVisitor extends DslVisitor<String> {
     }
 
     static {
-        TAGMAP.put("b", "<strong>");
-        ENDTAGMAP.put("b", "</strong>");
-        TAGMAP.put("br", "<br/>");
-        TAGMAP.put("i", "<span style='font-style: italic'>");
-        ENDTAGMAP.put("i", "</span>");
-        TAGMAP.put("t", "<span class=\"term\">");
-        ENDTAGMAP.put("t", "&nbsp;</span>");
-        TAGMAP.put("u", "<span style='text-decoration:underline'>");
-        ENDTAGMAP.put("u", "</span>");
-        TAGMAP.put("sup", "<sup>");
-        ENDTAGMAP.put("sup", "</sup>");
-        TAGMAP.put("sub", "</sub>");
-        ENDTAGMAP.put("sub", "</sub>");
-        ENDTAGMAP.put("c", "</span>");
-        ENDTAGMAP.put("'", "</span>");
-        TAGMAP.put("m", "<p>");
-        TAGMAP.put("m1", "<p style=\"text-indent: 30px\">");
-        TAGMAP.put("m2", "<p style=\"text-indent: 60px\">");
-        TAGMAP.put("m3", "<p style=\"text-indent: 90px\">");
-        TAGMAP.put("m4", "<p style=\"text-indent: 90px\">");
-        TAGMAP.put("m5", "<p style=\"text-indent: 90px\">");
-        TAGMAP.put("m6", "<p style=\"text-indent: 90px\">");
-        TAGMAP.put("m7", "<p style=\"text-indent: 90px\">");
-        TAGMAP.put("m8", "<p style=\"text-indent: 90px\">");
-        TAGMAP.put("m9", "<p style=\"text-indent: 90px\">");
-        ENDTAGMAP.put("m", "</p>");
-        ENDTAGMAP.put("lang", "</span>");
-        TAGMAP.put("*", "<span class=\"details\">");
-        ENDTAGMAP.put("*", "</span>");
+        TAGMAP.put(TagId.B, "<strong>");
+        ENDTAGMAP.put(TagId.B, "</strong>");
+        TAGMAP.put(TagId.BR, "<br/>");
+        TAGMAP.put(TagId.I, "<span style='font-style: italic'>");
+        ENDTAGMAP.put(TagId.I, "</span>");
+        TAGMAP.put(TagId.T, "<span class=\"term\">");
+        ENDTAGMAP.put(TagId.T, "&nbsp;</span>");
+        TAGMAP.put(TagId.U, "<span style='text-decoration:underline'>");
+        ENDTAGMAP.put(TagId.U, "</span>");
+        TAGMAP.put(TagId.SUP, "<sup>");
+        ENDTAGMAP.put(TagId.SUP, "</sup>");
+        TAGMAP.put(TagId.SUB, "</sub>");
+        ENDTAGMAP.put(TagId.SUB, "</sub>");
+        ENDTAGMAP.put(TagId.C, "</span>");
+        ENDTAGMAP.put(TagId.STRESS, "</span>");
+        TAGMAP.put(TagId.M, "<p>");
+        TAGMAP.put(TagId.M1, "<p style=\"text-indent: 30px\">");
+        TAGMAP.put(TagId.M2, "<p style=\"text-indent: 60px\">");
+        TAGMAP.put(TagId.M3, "<p style=\"text-indent: 90px\">");
+        TAGMAP.put(TagId.M4, "<p style=\"text-indent: 90px\">");
+        TAGMAP.put(TagId.M5, "<p style=\"text-indent: 90px\">");
+        TAGMAP.put(TagId.M6, "<p style=\"text-indent: 90px\">");
+        TAGMAP.put(TagId.M7, "<p style=\"text-indent: 90px\">");
+        TAGMAP.put(TagId.M8, "<p style=\"text-indent: 90px\">");
+        TAGMAP.put(TagId.M9, "<p style=\"text-indent: 90px\">");
+        ENDTAGMAP.put(TagId.M, "</p>");
+        ENDTAGMAP.put(TagId.LANG, "</span>");
+        TAGMAP.put(TagId.DETAILS, "<span class=\"details\">");
+        ENDTAGMAP.put(TagId.DETAILS, "</span>");
     }
 }
@@ -0,0 +1,106 @@
+package io.github.eb4j.dsl;
+
+import io.github.eb4j.dsl.visitor.DumpDslVisitor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Look up a dictionary from many threads without lock, and check every article
+ * against the one read by a single thread.
+ */
+class DslDictionaryConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int LOOKUPS = 2000;
+
+    @Test
+    void concurrentLookupPlain() throws URISyntaxException, IOException, InterruptedException {
+        concurrentLookup("/utf16le_nobom_lf_el.dsl");
+    }
+
+    @Test
+    void concurrentLookupDictZip() throws URISyntaxException, IOException, InterruptedException {
+        concurrentLookup("/utf16le_nobom_lf_el.dsl.dz");
+    }
+
+    @Test
+    void concurrentLookupMapped(@TempDir final Path tempDir) throws URISyntaxException, IOException,
+            InterruptedException {
+        DslDictionaryOptions options = new DslDictionaryOptions.Builder().setMemoryMapped(true).build();
+        concurrentLookup("/utf16le_nobom_lf_el.dsl", tempDir.resolve("mapped.dsl.idx"), options);
+    }
+
+    private void concurrentLookup(final String resource) throws URISyntaxException, IOException,
+            InterruptedException {
+        concurrentLookup(resource, null, null);
+    }
+
+    private void concurrentLookup(final String resource, final Path index, final DslDictionaryOptions options)
+            throws URISyntaxException, IOException, InterruptedException {
+        Path path = Paths.get(this.getClass().getResource(resource).toURI());
+        DslDictionary reference = DslDictionary.loadDictionary(path);
+        List<String> words = reference.suggest("", Integer.MAX_VALUE);
+        assertTrue(words.size() > 1000);
+        Map<String, List<Map.Entry<String, String>>> expected = new HashMap<>();
+        DumpDslVisitor dumper = new DumpDslVisitor();
+        for (String word : words) {
+            expected.put(word, reference.lookup(word).getEntries(dumper));
+        }
+        DslDictionary dictionary = reference;
+        if (options != null) {
+            dictionary = DslDictionary.loadDictionary(path, index, false, options);
+        }
+        final DslDictionary target = dictionary;
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final long seed = t;
+            Callable<Integer> task = () -> {
+                Random random = new Random(seed);
+                DumpDslVisitor visitor = new DumpDslVisitor();
+                int errors = 0;
+                start.await();
+                for (int i = 0; i < LOOKUPS; i++) {
+                    String word = words.get(random.nextInt(words.size()));
+                    if (!expected.get(word).equals(target.lookup(word).getEntries(visitor))) {
+                        errors++;
+                    }
+                }
+                return errors;
+            };
+            futures.add(executor.submit(task));
+        }
+        start.countDown();
+        try {
+            for (Future<Integer> future : futures) {
+                assertEquals(0, future.get());
+            }
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package io.github.eb4j.dsl;
 
+import io.github.eb4j.dsl.data.CacheStats;
+import io.github.eb4j.dsl.data.DslEntry;
+import io.github.eb4j.dsl.data.EvictionPolicy;
+import io.github.eb4j.dsl.data.IndexMode;
+import io.github.eb4j.dsl.impl.DictZipBlockSource;
+import io.github.eb4j.dsl.impl.IndexFile;
 import io.github.eb4j.dsl.visitor.DumpDslVisitor;
 import io.github.eb4j.dsl.visitor.HtmlDslVisitor;
 import io.github.eb4j.dsl.visitor.PlainDslVisitor;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
@@ -11,14 +18,28 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DslDictionaryTest {
 
     protected static final String LINE_SEPARATOR = System.getProperty("line.separator");
     private static final URL RESOURCE = DslDictionaryTest.class.getResource("/utf16le_bom_crlf_el.dsl");
+    /** Test dictionaries of all encodings and line ends. */
+    private static final String[] RESOURCES = {"/cp1251_crlf.dsl", "/lang_name.dsl", "/utf16_double_eol.dsl.dz",
+        "/utf16le_bom_crlf_el.dsl", "/utf16le_bom_crlf_noel_wo_lasteol.dsl", "/utf16le_bom_lf_el.dsl",
+        "/utf16le_lf_nel.dsl", "/utf16le_nobom_lf_el.dsl.dz", "/utf8_bom_lf_el.dsl", "/utf8_bom_lf_noel.dsl",
+        "/utf8_comment.dsl", "/utf8_lf_el.dsl", "/utf8_lf_noel.dsl"};
 
     @Test
     void loadDictionarySingle() throws URISyntaxException, IOException {
@@ -55,6 +76,31 @@ class DslDictionaryTest {
                 entry.getValue());
     }
 
+    @Test
+    void loadDictionaryPredictivePage() throws URISyntaxException, IOException {
+        DslDictionary dictionary = DslDictionary.loadDictionary(new File(RESOURCE.toURI()));
+        DumpDslVisitor dumper = new DumpDslVisitor();
+        List<Map.Entry<String, String>> all = dictionary.lookupPredictive("t").getEntries(dumper);
+        assertEquals(5, all.size());
+        List<Map.Entry<String, String>> page = dictionary.lookupPredictive("t", 1, 2).getEntries(dumper);
+        assertEquals(all.subList(1, 3), page);
+        page = dictionary.lookupPredictive("t", 4, 2).getEntries(dumper);
+        assertEquals(all.subList(4, 5), page);
+    }
+
+    @Test
+    void loadDictionarySuggest() throws URISyntaxException, IOException {
+        DslDictionary dictionary = DslDictionary.loadDictionary(new File(RESOURCE.toURI()));
+        assertEquals(Arrays.asList("tab", "tag", "test"), dictionary.suggest("t", 3));
+        List<Map.Entry<String, DslEntry>> handles = dictionary.suggestEntries("ta", 10);
+        assertEquals(2, handles.size());
+        assertEquals("tag", handles.get(1).getKey());
+        DumpDslVisitor dumper = new DumpDslVisitor();
+        Map.Entry<String, String> entry = dictionary.getArticles(handles.subList(1, 2)).getEntries(dumper).get(0);
+        assertEquals("tag", entry.getKey());
+        assertEquals("[m1][trn]tag should be ignored[/trn][/m]", entry.getValue());
+    }
+
     @Test
     void loadDictionaryMultiHead() throws URISyntaxException, IOException {
         DslDictionary dictionary = DslDictionary.loadDictionary(new File(RESOURCE.toURI()));
@@ -192,6 +238,223 @@ class DslDictionaryTest {
         assertEquals("[m1]Life[/m]\n[m1]\u751F\u547D[/m]", entry.getValue());
     }
 
+    @Test
+    void lookupAll(@TempDir final Path tempDir) throws URISyntaxException, IOException {
+        Path plain = Paths.get(this.getClass().getResource("/utf16le_nobom_lf_el.dsl").toURI());
+        Path zip = Paths.get(this.getClass().getResource("/utf16le_nobom_lf_el.dsl.dz").toURI());
+        DslDictionary reference = DslDictionary.loadDictionary(plain, tempDir.resolve("plain.idx"));
+        List<String> words = new ArrayList<>(reference.suggest("", Integer.MAX_VALUE));
+        Collections.shuffle(words, new Random(1));
+        words.add(3, "no such word");
+        words.add(words.get(10));
+        DslDictionaryOptions noChunkCache = new DslDictionaryOptions.Builder().setChunkCacheSize(0)
+                .setArticleCacheSize(100).build();
+        DslDictionary[] dictionaries = {reference,
+            DslDictionary.loadDictionary(zip, tempDir.resolve("zip.idx"), false, noChunkCache),
+            DslDictionary.loadDictionary(plain, tempDir.resolve("mapped.idx"), false,
+                    new DslDictionaryOptions.Builder().setMemoryMapped(true).build())};
+        DumpDslVisitor dumper = new DumpDslVisitor();
+        for (DslDictionary dictionary : dictionaries) {
+            // some articles are cached before the batch
+            for (int i = 0; i < 50; i++) {
+                dictionary.lookup(words.get(i)).getEntries(dumper);
+            }
+            List<DslResult> results = dictionary.lookupAll(words);
+            assertEquals(words.size(), results.size());
+            for (int i = 0; i < words.size(); i++) {
+                assertEquals(reference.lookup(words.get(i)).getEntries(dumper), results.get(i).getEntries(dumper));
+            }
+        }
+        // every chunk is inflated once in a batch covering whole dictionary
+        DslZipDictionary dictionary = (DslZipDictionary) DslDictionary.loadDictionary(zip, tempDir.resolve("zip.idx"),
+                false, noChunkCache);
+        dictionary.lookupAll(words);
+        try (DictZipBlockSource source = new DictZipBlockSource(zip)) {
+            assertEquals(source.blockCount(), dictionary.getChunkCacheStats().getMissCount());
+        }
+    }
+
+    @Test
+    void lookupAsync(@TempDir final Path tempDir) throws Exception {
+        Path plain = Paths.get(this.getClass().getResource("/utf16le_nobom_lf_el.dsl").toURI());
+        Path zip = Paths.get(this.getClass().getResource("/utf16le_nobom_lf_el.dsl.dz").toURI());
+        DslDictionary reference = DslDictionary.loadDictionary(plain, tempDir.resolve("plain.idx"));
+        AtomicInteger inflated = new AtomicInteger();
+        Executor executor = command -> {
+            inflated.incrementAndGet();
+            command.run();
+        };
+        DslDictionary[] dictionaries = {reference,
+            DslDictionary.loadDictionary(zip, tempDir.resolve("zip.idx"), false,
+                    new DslDictionaryOptions.Builder().setAsyncExecutor(executor).build()),
+            DslDictionary.loadDictionary(plain, tempDir.resolve("mapped.idx"), false,
+                    new DslDictionaryOptions.Builder().setMemoryMapped(true).build())};
+        DumpDslVisitor dumper = new DumpDslVisitor();
+        for (DslDictionary dictionary : dictionaries) {
+            for (String word : Arrays.asList("ace", "no such word", "acid")) {
+                assertEquals(reference.lookup(word).getEntries(dumper),
+                        dictionary.lookupAsync(word).get().getEntries(dumper));
+            }
+            assertEquals(reference.lookupPredictive("ab").getEntries(dumper),
+                    dictionary.lookupPredictiveAsync("ab").get().getEntries(dumper));
+            assertEquals(reference.lookupPredictive("a", 10, 20).getEntries(dumper),
+                    dictionary.lookupPredictiveAsync("a", 10, 20).get().getEntries(dumper));
+        }
+        assertTrue(inflated.get() > 0);
+    }
+
+    @Test
+    void renderParallel(@TempDir final Path tempDir) throws URISyntaxException, IOException {
+        Path plain = Paths.get(this.getClass().getResource("/utf16le_nobom_lf_el.dsl").toURI());
+        Path zip = Paths.get(this.getClass().getResource("/utf16le_nobom_lf_el.dsl.dz").toURI());
+        DslDictionary[] dictionaries = {DslDictionary.loadDictionary(plain, tempDir.resolve("plain.idx")),
+            DslDictionary.loadDictionary(zip, tempDir.resolve("zip.idx")),
+            DslDictionary.loadDictionary(plain, tempDir.resolve("mapped.idx"), false,
+                    new DslDictionaryOptions.Builder().setMemoryMapped(true).setArticleCacheSize(100).build())};
+        for (DslDictionary dictionary : dictionaries) {
+            DslResult result = dictionary.lookupPredictive("");
+            assertTrue(result.size() > 100);
+            assertEquals(result.getEntries(new HtmlDslVisitor()), result.getEntries(HtmlDslVisitor::new));
+            assertEquals(result.getEntries(new DumpDslVisitor()), result.getEntries(DumpDslVisitor::new));
+            // a visitor which is not streaming is made for each entry
+            AtomicInteger made = new AtomicInteger();
+            List<Map.Entry<String, String>> entries = result.getEntries(() -> {
+                made.incrementAndGet();
+                return new PlainDslVisitor();
+            });
+            assertEquals(result.size(), entries.size());
+            assertEquals(result.size(), made.get());
+        }
+        // order is kept and entries which cannot be parsed are skipped
+        List<Map.Entry<String, String>> articles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String article = "[b]" + i + "[/b]";
+            if (i % 7 == 0) {
+                article = "\"*c green*][";
+            }
+            articles.add(new AbstractMap.SimpleImmutableEntry<>("word" + i, article));
+        }
+        DslResult result = new DslResult(articles);
+        assertEquals(result.getEntries(new HtmlDslVisitor()), result.getEntries(HtmlDslVisitor::new));
+        assertEquals(85, result.getEntries(HtmlDslVisitor::new).size());
+    }
+
+    @Test
+    void trimArticle() throws URISyntaxException, IOException {
+        DslDictionary dictionary = DslDictionary.loadDictionary(new File(RESOURCE.toURI()));
+        char[] alphabet = {'a', 'b', ' ', '\t', '\n', '\r', '\u000B', '\f', '\u2028', '\u2029', '\u0085', '\u0001',
+            '\u00A0'};
+        Random random = new Random(1);
+        for (int n = 0; n < 100000; n++) {
+            char[] chars = new char[random.nextInt(12)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String article = new String(chars);
+            String expected = DslDictionary.DELIMITER_PATTERN.matcher(article)
+                    .replaceAll(DslDictionary.LINE_SEPARATOR).trim();
+            assertEquals(expected, dictionary.trimArticle(article), article);
+        }
+    }
+
+    @Test
+    void headWordsFromIndex(@TempDir final Path tempDir) throws URISyntaxException, IOException {
+        int count = 0;
+        for (IndexMode mode : IndexMode.values()) {
+            DslDictionaryOptions options = new DslDictionaryOptions.Builder().setIndexMode(mode).build();
+            for (String resource : RESOURCES) {
+                Path path = Paths.get(this.getClass().getResource(resource).toURI());
+                DslDictionary dictionary = DslDictionary.loadDictionary(path,
+                        tempDir.resolve(mode + path.getFileName().toString() + ".idx"), false, options);
+                for (Map.Entry<String, DslEntry> en : dictionary.suggestEntries("", Integer.MAX_VALUE)) {
+                    DslEntry entry = en.getValue();
+                    DslEntry header = new DslEntry(entry.getHeaderOffset(), entry.getHeaderSize(),
+                            entry.getOffset(), entry.getSize());
+                    assertEquals(dictionary.getHeadWord(header), dictionary.getHeadWord(entry), resource);
+                    count++;
+                }
+            }
+        }
+        assertTrue(count > 2000);
+    }
+
+    @Test
+    void parseFromRecord(@TempDir final Path tempDir) throws URISyntaxException, IOException {
+        DumpDslVisitor dumper = new DumpDslVisitor();
+        int count = 0;
+        for (String resource : RESOURCES) {
+            Path path = Paths.get(this.getClass().getResource(resource).toURI());
+            DslDictionary dictionary = DslDictionary.loadDictionary(path,
+                    tempDir.resolve(path.getFileName().toString() + ".idx"));
+            DslResult result = dictionary.lookupPredictive("");
+            List<Map.Entry<String, String>> articles = new ArrayList<>();
+            for (int i = 0; i < result.size(); i++) {
+                articles.add(new AbstractMap.SimpleImmutableEntry<>(result.getHeadWord(i), result.getArticle(i)));
+            }
+            // articles decoded from record bytes are parsed as same as strings
+            assertEquals(new DslResult(articles).getEntries(dumper),
+                    dictionary.lookupPredictive("").getEntries(dumper), resource);
+            count += result.size();
+        }
+        assertTrue(count > 1000);
+    }
+
+    @Test
+    void lazyResult(@TempDir final Path tempDir) throws URISyntaxException, IOException {
+        Path zip = Paths.get(this.getClass().getResource("/utf16le_nobom_lf_el.dsl.dz").toURI());
+        DslZipDictionary dictionary = (DslZipDictionary) DslDictionary.loadDictionary(zip, tempDir.resolve("zip.idx"),
+                false, new DslDictionaryOptions.Builder().setChunkCacheSize(0).build());
+        DslResult result = dictionary.lookupPredictive("a");
+        assertTrue(result.size() > 100);
+        assertEquals(0, dictionary.getChunkCacheStats().getMissCount());
+        // headword is served from index
+        assertEquals("ace", dictionary.lookup("ace").getHeadWord(0));
+        assertEquals(0, dictionary.getChunkCacheStats().getMissCount());
+        assertEquals("[m1]/ˈeɪs/[/m]", dictionary.lookup("ace").getArticle(0));
+        long inflated = dictionary.getChunkCacheStats().getMissCount();
+        assertTrue(inflated > 0);
+        String article = result.getArticle(1);
+        inflated = dictionary.getChunkCacheStats().getMissCount();
+        assertEquals(article, result.getArticle(1));
+        assertEquals(inflated, dictionary.getChunkCacheStats().getMissCount());
+    }
+
+    @Test
+    void articleCache() throws URISyntaxException, IOException {
+        Path path = Paths.get(RESOURCE.toURI());
+        DslDictionaryOptions options = new DslDictionaryOptions.Builder().setArticleCacheSize(2)
+                .setArticleCachePolicy(EvictionPolicy.LRU).build();
+        DslDictionary dictionary = DslDictionary.loadDictionary(path, null, false, options);
+        DumpDslVisitor dumper = new DumpDslVisitor();
+        String expected = dictionary.lookup("tab").getEntries(dumper).get(0).getValue();
+        assertEquals(expected, dictionary.lookup("tab").getEntries(dumper).get(0).getValue());
+        dictionary.lookup("space").getEntries(dumper);
+        dictionary.lookup("tag").getEntries(dumper);
+        assertEquals(expected, dictionary.lookup("tab").getEntries(dumper).get(0).getValue());
+        CacheStats stats = dictionary.getArticleCacheStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(4, stats.getMissCount());
+        assertEquals(2, stats.getEvictionCount());
+        assertEquals(2, stats.getWeight());
+    }
+
+    @Test
+    void loadCaseFolded(@TempDir final Path tempDir) throws URISyntaxException, IOException {
+        Path utf8 = Paths.get(this.getClass().getResource("/utf8_lf_el.dsl").toURI());
+        Path index = tempDir.resolve("utf8_lf_el.dsl.idx");
+        DslDictionary dictionary = DslDictionary.loadDictionary(utf8, index, false,
+                new DslDictionaryOptions.Builder().setIndexMode(IndexMode.CASE_FOLDED).build());
+        assertEquals(IndexMode.CASE_FOLDED, IndexFile.read(index).getIndex().getMode());
+        DumpDslVisitor dumper = new DumpDslVisitor();
+        Map.Entry<String, String> entry = dictionary.lookup("LIFE").getEntries(dumper).get(0);
+        assertEquals("[m1]Life[/m]\n[m1]\u751F\u547D[/m]", entry.getValue());
+        // index of other mode is rebuilt
+        dictionary = DslDictionary.loadDictionary(utf8, index, false, DslDictionaryOptions.defaults());
+        assertEquals(IndexMode.STANDARD, IndexFile.read(index).getIndex().getMode());
+        entry = dictionary.lookup("life").getEntries(dumper).get(0);
+        assertEquals("[m1]Life[/m]\n[m1]\u751F\u547D[/m]", entry.getValue());
+    }
+
     @Test
     void loadUtf8_BOM_LF_EL() throws URISyntaxException, IOException {
         URL utf8 = this.getClass().getResource("/utf8_bom_lf_el.dsl");
@@ -292,6 +555,11 @@ class DslDictionaryTest {
                 "[m2]to [ref]abandon the \\[gold\\] standard[/ref][/m]\n" +
                 "[m2]to [ref]abandon \\[price\\] control[/ref][/m]\n" +
                 "[m2]to [ref]abandon a right[/ref][/m]", entry.getValue());
+        // small dictionary is one chunk, inflated once and served from cache for
+        // article of each look up afterwards; headwords come from index
+        CacheStats stats = ((DslZipDictionary) dictionary).getChunkCacheStats();
+        assertEquals(1, stats.getMissCount());
+        assertEquals(3, stats.getHitCount());
     }
 
     @Test
@@ -1,14 +1,29 @@
 package io.github.eb4j.dsl;
 
+import io.github.eb4j.dsl.visitor.DslVisitor;
 import io.github.eb4j.dsl.visitor.DumpDslVisitor;
 import io.github.eb4j.dsl.visitor.HtmlDslVisitor;
 import io.github.eb4j.dsl.visitor.PlainDslVisitor;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 public class DslParserTest {
@@ -171,4 +186,150 @@ public class DslParserTest {
         assertEquals("<span class=\"details\">abc</span>", visitor.getObject());
     }
 
+    @Test
+    void charBuffer() throws ParseException {
+        char[] text = "xx[trn][c]abc[/c][/trn]xx".toCharArray();
+        DslParser parser = DslParser.createParser(CharBuffer.wrap(text, 2, text.length - 4));
+        DslArticle article = parser.DslArticle();
+        DumpDslVisitor dumper = new DumpDslVisitor();
+        article.accept(dumper);
+        assertEquals("[trn][c]abc[/c][/trn]", dumper.getObject());
+    }
+
+    @Test
+    void unicodeEscape() throws ParseException {
+        DslParser parser = DslParser.createParser("[b]\\u0041\\uu0042c[/b]");
+        DslArticle article = parser.DslArticle();
+        PlainDslVisitor visitor = new PlainDslVisitor();
+        article.accept(visitor);
+        assertEquals("ABc", visitor.getObject());
+    }
+
+    @Test
+    void pooledParser() throws ParseException {
+        String[] articles = {"[m1][b]1.[/b] [trn]abc [com]([i]def[/i])[/com][/trn][/m]", "[c green]abc[/c",
+            "[lang name=\"Russian\"]abc[/lang]", "[/]abc[b", "\"*c green*][", "[ref]abc[/ref]\n[m2]def[/m]", "",
+            "\\u0041[b]]"};
+        DumpDslVisitor expected = new DumpDslVisitor();
+        DumpDslVisitor actual = new DumpDslVisitor();
+        // a parser failed with an error is reset for next article
+        assertThrows(ParseException.class, () -> DslParser.createParser(articles[4]).DslArticle());
+        for (int i = 0; i < 3; i++) {
+            for (String text : articles) {
+                if (text.equals(articles[4])) {
+                    assertThrows(ParseException.class, () -> DslParser.parseArticle(text));
+                    continue;
+                }
+                DslParser.createParser(text).DslArticle().accept(expected);
+                DslParser.parseArticle(text).accept(actual);
+                assertEquals(expected.getObject(), actual.getObject());
+            }
+        }
+    }
+
+    @Test
+    void streaming() throws ParseException {
+        String[] articles = {"[m1][b]1.[/b] [trn]abc [com]([i]def[/i])[/com][/trn][/m]", "[url]abc",
+            "[lang name=\"Russian\"]abc[/lang]", "[s]abc.wav[/s]", "[b]abc\"*c green*][", "[c green]abc[/c]\n[m2]d[/m]",
+            "[/]abc[b", ""};
+        List<DslVisitor<String>> visitors = Arrays.asList(new HtmlDslVisitor(), new DumpDslVisitor());
+        for (DslVisitor<String> visitor : visitors) {
+            assertTrue(visitor.isStreaming());
+            for (String text : articles) {
+                String expected;
+                try {
+                    DslParser.createParser(text).DslArticle().accept(visitor);
+                    expected = visitor.getObject();
+                } catch (ParseException e) {
+                    // elements visited before error are discarded by next article
+                    assertThrows(ParseException.class, () -> DslParser.parseArticle(text, visitor));
+                    continue;
+                }
+                DslParser.parseArticle(text, visitor);
+                assertEquals(expected, visitor.getObject(), text);
+            }
+        }
+        assertFalse(new PlainDslVisitor().isStreaming());
+        // a subclass may override visit of article, so it is not streaming
+        assertFalse(new HtmlDslVisitor() { }.isStreaming());
+        assertFalse(new DumpDslVisitor() { }.isStreaming());
+    }
+
+    @Test
+    void internedTags() throws ParseException {
+        DslArticle article = DslParser.createParser("[b]a[/b]\n[b]c[/b][c green]d[/c][c]e[/c]\n").DslArticle();
+        List<DslArticle.DslElement> elements = new ArrayList<>();
+        for (Iterator<DslArticle.DslElement> it = article.getElements().iterator(); it.hasNext();) {
+            elements.add(it.next());
+        }
+        assertSame(elements.get(0), elements.get(4));
+        assertSame(elements.get(2), elements.get(6));
+        assertSame(elements.get(3), elements.get(13));
+        assertSame(DslArticle.Newline.INSTANCE, elements.get(3));
+        assertSame(DslArticle.TagId.B, ((DslArticle.Tag) elements.get(0)).getTagId());
+        assertSame(DslArticle.TagId.B, ((DslArticle.EndTag) elements.get(2)).getTagId());
+        // a tag with attribute is not shared
+        assertNotSame(elements.get(7), DslArticle.Tag.of("c", null));
+        assertSame(elements.get(10), DslArticle.Tag.of("c", null));
+        assertSame(elements.get(9), elements.get(12));
+        assertSame(DslArticle.TagId.NOT_TRS, DslArticle.TagId.of("!trs"));
+        assertSame(DslArticle.TagId.STRESS, new DslArticle.Tag("'", null).getTagId());
+        assertNull(new DslArticle.EndTag("url").getTagId());
+        assertEquals("[m1]", DslArticle.Tag.of("m1", null).toString());
+    }
+
+    @Test
+    void internedTagsHtml() {
+        DslArticle.ElementSequence sequence = new DslArticle.ElementSequence();
+        sequence.addElement(new DslArticle.Tag("b", null));
+        sequence.addElement(new DslArticle.Tag("url", null));
+        sequence.addElement(new DslArticle.Text("https://example.com/"));
+        sequence.addElement(new DslArticle.EndTag("url"));
+        sequence.addElement(new DslArticle.EndTag("b"));
+        sequence.addElement(new DslArticle.Newline());
+        HtmlDslVisitor htmlVisitor = new HtmlDslVisitor();
+        new DslArticle(sequence).accept(htmlVisitor);
+        assertEquals("<strong><a href=\"https://example.com/\">https://example.com/</a></strong>\n",
+                htmlVisitor.getObject());
+    }
+
+    @Test
+    void plainArticle() throws ParseException {
+        String[] articles = {"abc def", "abc \t\r\n  \n\tdef\r\r\n", " \n", "\n  ", "", "a\"b\"c'd"};
+        for (String text : articles) {
+            assertTrue(PlainArticle.isPlain(text));
+            assertEquals(elements(DslParser.createParser(text).DslArticle()), elements(DslParser.parseArticle(text)),
+                    text);
+            HtmlDslVisitor expected = new HtmlDslVisitor();
+            DslParser.createParser(text).DslArticle().accept(expected);
+            HtmlDslVisitor actual = new HtmlDslVisitor();
+            DslParser.parseArticle(text, actual);
+            assertEquals(expected.getObject(), actual.getObject());
+        }
+        assertFalse(PlainArticle.isPlain("abc]"));
+        assertFalse(PlainArticle.isPlain("\\u0041"));
+    }
+
+    private static String elements(final DslArticle article) {
+        StringBuilder sb = new StringBuilder();
+        for (Iterator<DslArticle.DslElement> it = article.getElements().iterator(); it.hasNext();) {
+            DslArticle.DslElement element = it.next();
+            sb.append(element.getClass().getSimpleName()).append('(').append(element).append(')');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void streamConstructors() throws ParseException {
+        String text = "[m1][b]\u0436\u0451\u043b\u0442\u044b\u0439[/b] [c green]yellow[/c][/m]";
+        String expected = elements(DslParser.createParser(text).DslArticle());
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected, elements(new DslParser(new StringReader(text)).DslArticle()));
+        DslParser parser = new DslParser(new ByteArrayInputStream(bytes), "UTF-8");
+        assertEquals(expected, elements(parser.DslArticle()));
+        parser.ReInit(new StringReader("[b]abc[/b]"));
+        assertEquals(elements(DslParser.createParser("[b]abc[/b]").DslArticle()), elements(parser.DslArticle()));
+        parser.ReInit(new ByteArrayInputStream(bytes), "UTF-8");
+        assertEquals(expected, elements(parser.DslArticle()));
+    }
 }
@@ -0,0 +1,101 @@
+package io.github.eb4j.dsl.data;
+
+import io.github.eb4j.dsl.index.DslIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DictionaryDataTest {
+
+    private static final String[] HEADWORDS = {"tab", "Space", "space", "abandon", "tag", "Tab", "TAB"};
+
+    private static DictionaryData<DslEntry> build(final IndexMode mode) {
+        List<DslIndex.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < HEADWORDS.length; i++) {
+            entries.add(DslIndex.Entry.newBuilder().setHeadWord(HEADWORDS[i]).setOffset(i).build());
+        }
+        return new DictionaryDataBuilder<DslEntry>(mode).build(entries);
+    }
+
+    private static List<String> lookUp(final DictionaryData<DslEntry> data, final String word,
+                                       final boolean predictive) {
+        List<String> result = new ArrayList<>();
+        List<Map.Entry<String, DslEntry>> entries;
+        if (predictive) {
+            entries = data.lookUpPredictive(word);
+        } else {
+            entries = data.lookUp(word);
+        }
+        for (Map.Entry<String, DslEntry> entry : entries) {
+            result.add(entry.getKey() + "=" + entry.getValue().getOffset());
+        }
+        return result;
+    }
+
+    @Test
+    void lookUpStandard() {
+        DictionaryData<DslEntry> data = build(IndexMode.STANDARD);
+        // abandon, Space, space, TAB, Tab, tab, tag
+        assertEquals(7, data.size());
+        assertEquals(Arrays.asList("tab=0", "tab=5", "tab=6"), lookUp(data, "tab", false));
+        assertEquals(Arrays.asList("Tab=5"), lookUp(data, "Tab", false));
+        assertEquals(Arrays.asList("tab=0", "tab=5", "tab=6"), lookUp(data, "tAB", false));
+        assertEquals(Arrays.asList("Tab=5"), lookUp(data, "Ta", true));
+    }
+
+    @Test
+    void lookUpCaseFolded() {
+        DictionaryData<DslEntry> data = build(IndexMode.CASE_FOLDED);
+        // abandon, space, tab, tag
+        assertEquals(4, data.size());
+        assertEquals(Arrays.asList("tab=0", "Tab=5", "TAB=6"), lookUp(data, "tab", false));
+        assertEquals(Arrays.asList("Tab=5"), lookUp(data, "Tab", false));
+        assertEquals(Arrays.asList("TAB=6"), lookUp(data, "TAB", false));
+        assertEquals(Arrays.asList("tab=0", "Tab=5", "TAB=6"), lookUp(data, "tAB", false));
+        assertEquals(Arrays.asList("Tab=5", "TAB=6"), lookUp(data, "T", true));
+        assertEquals(Arrays.asList("Tab=5"), lookUp(data, "Ta", true));
+        assertEquals(Arrays.asList("tab=0", "Tab=5", "TAB=6", "tag=4"), lookUp(data, "ta", true));
+        assertEquals(Arrays.asList("Space=1", "space=2"), lookUp(data, "SPACE", false));
+        assertEquals(Collections.emptyList(), lookUp(data, "x", true));
+    }
+
+    @Test
+    void lookUpPredictivePage() {
+        for (IndexMode mode : IndexMode.values()) {
+            DictionaryData<DslEntry> data = build(mode);
+            for (String word : new String[] {"", "t", "Ta", "TA", "s", "x"}) {
+                List<Map.Entry<String, DslEntry>> all = data.lookUpPredictive(word);
+                for (int offset = 0; offset <= all.size() + 1; offset++) {
+                    for (int limit = 0; limit <= all.size() + 1; limit++) {
+                        List<Map.Entry<String, DslEntry>> expected = all.subList(Math.min(offset, all.size()),
+                                Math.min(offset + limit, all.size()));
+                        assertEquals(expected, data.lookUpPredictive(word, offset, limit), mode + " " + word);
+                    }
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> build(IndexMode.STANDARD).lookUpPredictive("t", -1, 1));
+    }
+
+    @Test
+    void suggest() {
+        DictionaryData<DslEntry> data = build(IndexMode.STANDARD);
+        assertEquals(Arrays.asList("tab", "tag"), data.suggest("ta", 10));
+        assertEquals(Arrays.asList("TAB", "Tab"), data.suggest("T", 10));
+        assertEquals(Arrays.asList("TAB"), data.suggest("TA", 10));
+        assertEquals(Arrays.asList("tab", "tag"), data.suggest("tA", 10));
+        assertEquals(Arrays.asList("Space", "TAB"), data.suggest("", 2));
+        data = build(IndexMode.CASE_FOLDED);
+        assertEquals(Arrays.asList("tab", "Tab", "TAB", "tag"), data.suggest("ta", 10));
+        assertEquals(Arrays.asList("Tab", "TAB"), data.suggest("T", 10));
+        assertEquals(Arrays.asList("abandon", "Space"), data.suggest("", 2));
+        assertEquals(Collections.emptyList(), data.suggest("x", 2));
+    }
+}
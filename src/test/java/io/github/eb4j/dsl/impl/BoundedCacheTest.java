@@ -0,0 +1,128 @@
+package io.github.eb4j.dsl.impl;
+
+import io.github.eb4j.dsl.data.CacheStats;
+import io.github.eb4j.dsl.data.EvictionPolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedCacheTest {
+
+    private static BoundedCache<byte[]> chunks(final EvictionPolicy policy, final long capacity, final int size) {
+        return new BoundedCache<>(policy, capacity, capacity / size, data -> data.length);
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() {
+        BoundedCache<byte[]> cache = chunks(EvictionPolicy.LRU, 300, 100);
+        cache.put(0, new byte[100]);
+        cache.put(1, new byte[100]);
+        cache.put(2, new byte[100]);
+        assertNotNull(cache.get(0));
+        cache.put(3, new byte[100]);
+        assertNull(cache.get(1));
+        assertNotNull(cache.get(0));
+        assertNotNull(cache.get(2));
+        assertNotNull(cache.get(3));
+        // short last chunk
+        cache.put(4, new byte[50]);
+        assertNull(cache.get(0));
+        CacheStats stats = cache.stats();
+        assertEquals(4, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(2, stats.getEvictionCount());
+        assertEquals(250, stats.getWeight());
+    }
+
+    @Test
+    void disabled() {
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            BoundedCache<byte[]> cache = chunks(policy, 0, 100);
+            cache.put(0, new byte[100]);
+            assertNull(cache.get(0));
+            assertEquals(0, cache.stats().getWeight());
+            assertEquals(1, cache.stats().getMissCount());
+        }
+    }
+
+    @Test
+    void segmented() {
+        BoundedCache<byte[]> cache = chunks(EvictionPolicy.LRU, 64 * 100, 100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, new byte[100]);
+        }
+        CacheStats stats = cache.stats();
+        assertEquals(64 * 100, stats.getWeight());
+        assertEquals(1000 - 64, stats.getEvictionCount());
+        // most recent chunks are kept in every segment
+        for (int i = 1000 - 16; i < 1000; i++) {
+            assertNotNull(cache.get(i));
+        }
+    }
+
+    @Test
+    void boundedByWeight() {
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            BoundedCache<String> cache = new BoundedCache<>(policy, 10000, 100, String::length);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 5000; i++) {
+                sb.append('x');
+                cache.put(i % 700, sb.substring(0, i % 300 + 1));
+                cache.get(i % 31);
+                assertTrue(cache.stats().getWeight() <= 10000, policy.name());
+            }
+            // a value heavier than the cache is not cached
+            cache.put(-1, new String(new char[20000]));
+            assertNull(cache.get(-1));
+        }
+    }
+
+    /**
+     * Hot keys are read between scans of keys read once; TinyLFU keeps hot keys which LRU loses.
+     */
+    @Test
+    void scanResistance() {
+        assertEquals(100, hotHits(EvictionPolicy.W_TINY_LFU));
+        assertTrue(hotHits(EvictionPolicy.LRU) < 10);
+    }
+
+    private static int hotHits(final EvictionPolicy policy) {
+        BoundedCache<String> cache = new BoundedCache<>(policy, 200, 200, value -> 1);
+        for (int round = 0; round < 10; round++) {
+            for (long key = 0; key < 100; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, "hot");
+                }
+            }
+        }
+        for (long key = 1000; key < 2000; key++) {
+            if (cache.get(key) == null) {
+                cache.put(key, "cold");
+            }
+        }
+        int hits = 0;
+        for (long key = 0; key < 100; key++) {
+            if (cache.get(key) != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Test
+    void replaceValue() {
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            BoundedCache<String> cache = new BoundedCache<>(policy, 100, 10, String::length);
+            cache.put(1, "abc");
+            cache.put(1, "abcdef");
+            assertEquals("abcdef", cache.get(1));
+            assertEquals(6, cache.stats().getWeight());
+            cache.clear();
+            assertNull(cache.get(1));
+            assertEquals(0, cache.stats().getWeight());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.eb4j.dsl.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DictionaryHeaderTest {
+
+    private DictionaryHeader read(final String name, final boolean isDictZip) throws URISyntaxException, IOException {
+        Path path = Paths.get(this.getClass().getResource(name).toURI());
+        try (BlockSource source = BlockSource.open(path, isDictZip)) {
+            return DictionaryHeader.read(source);
+        }
+    }
+
+    @Test
+    void readCodePage() throws URISyntaxException, IOException {
+        DictionaryHeader header = read("/cp1251_crlf.dsl", false);
+        assertEquals(0, header.getBomLength());
+        assertEquals(Charset.forName("Cp1251"), header.getCharset());
+        assertArrayEquals("\r\n".getBytes(StandardCharsets.US_ASCII), header.getEol());
+        assertEquals("Cyrillic", header.getCodePage());
+        assertEquals("Test (En-Ru)", header.getName());
+        assertEquals("English", header.getIndexLanguage());
+        assertEquals("Russian", header.getContentLanguage());
+        assertNull(header.getInclude());
+    }
+
+    @Test
+    void readUtf8Bom() throws URISyntaxException, IOException {
+        DictionaryHeader header = read("/utf8_bom_lf_el.dsl", false);
+        assertEquals(3, header.getBomLength());
+        assertEquals(StandardCharsets.UTF_8, header.getCharset());
+        assertArrayEquals("\n".getBytes(StandardCharsets.UTF_8), header.getEol());
+        assertEquals("test (En-Ru)", header.getName());
+    }
+
+    @Test
+    void readUtf16Bom() throws URISyntaxException, IOException {
+        DictionaryHeader header = read("/utf16le_bom_crlf_el.dsl", false);
+        assertEquals(2, header.getBomLength());
+        assertEquals(StandardCharsets.UTF_16LE, header.getCharset());
+        assertArrayEquals("\r\n".getBytes(StandardCharsets.UTF_16LE), header.getEol());
+        assertEquals("Russian", header.getContentLanguage());
+    }
+
+    @Test
+    void readUtf16NoBomDictZip() throws URISyntaxException, IOException {
+        DictionaryHeader header = read("/utf16le_nobom_lf_el.dsl.dz", true);
+        assertEquals(0, header.getBomLength());
+        assertEquals(StandardCharsets.UTF_16LE, header.getCharset());
+        assertArrayEquals("\n".getBytes(StandardCharsets.UTF_16LE), header.getEol());
+        assertEquals("IPA Dictionary - English", header.getName());
+        assertEquals(read("/utf16le_nobom_lf_el.dsl", false).getName(), header.getName());
+    }
+}
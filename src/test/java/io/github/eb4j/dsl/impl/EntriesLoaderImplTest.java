@@ -0,0 +1,88 @@
+package io.github.eb4j.dsl.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntriesLoaderImplTest {
+
+    private static final byte[] LF = "\n".getBytes(StandardCharsets.UTF_16LE);
+    private static final String[] DICTIONARIES = {"/cp1251_crlf.dsl", "/lang_name.dsl", "/utf16_double_eol.dsl",
+        "/utf16le_bom_crlf_el.dsl", "/utf16le_bom_crlf_noel_wo_lasteol.dsl", "/utf16le_bom_lf_el.dsl",
+        "/utf16le_lf_nel.dsl", "/utf16le_nobom_lf_el.dsl", "/utf8_bom_lf_el.dsl", "/utf8_bom_lf_noel.dsl",
+        "/utf8_comment.dsl", "/utf8_lf_el.dsl", "/utf8_lf_noel.dsl", "/utf8_irregular.dsl"};
+    /**
+     * Dictzip files; utf8_lf_el.dsl.dz and utf8_irregular.dsl.dz are made of 64 bytes chunks,
+     * so cards, blank lines in articles and characters cross chunks.
+     */
+    private static final String[] DICTZIP_DICTIONARIES = {"/utf16_double_eol.dsl.dz", "/utf16le_bom_crlf_el.dsl.dz",
+        "/utf16le_nobom_lf_el.dsl.dz", "/utf8_lf_el.dsl.dz", "/utf8_irregular.dsl.dz"};
+
+    /**
+     * Plain and dictzip files of same content should produce same entries.
+     * The dictzip file is composed of several chunks, so scanning crosses chunk boundaries.
+     */
+    @Test
+    void loadAcrossBlocks() throws URISyntaxException, IOException {
+        Path plain = Paths.get(this.getClass().getResource("/utf16le_nobom_lf_el.dsl").toURI());
+        Path dictzip = Paths.get(this.getClass().getResource("/utf16le_nobom_lf_el.dsl.dz").toURI());
+        EntryTable expected;
+        try (EntriesLoaderImpl loader = new EntriesLoaderImpl(plain, false, StandardCharsets.UTF_16LE, LF)) {
+            expected = loader.load();
+        }
+        EntryTable actual;
+        try (EntriesLoaderImpl loader = new EntriesLoaderImpl(dictzip, true, StandardCharsets.UTF_16LE, LF)) {
+            actual = loader.load();
+        }
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void loadParallel() throws URISyntaxException, IOException {
+        for (String resource : DICTIONARIES) {
+            EntryTable expected = load(resource, false, 1);
+            assertTrue(expected.size() > 0, resource);
+            // many small ranges split cards, blank lines in articles and comment lines
+            for (int ranges : new int[] {2, 3, 5, 7, 16, 20, 100, 300}) {
+                assertEquals(expected, load(resource, false, ranges), resource + " in " + ranges);
+            }
+        }
+    }
+
+    @Test
+    void loadParallelDictZip() throws URISyntaxException, IOException {
+        for (String resource : DICTZIP_DICTIONARIES) {
+            EntryTable expected = load(resource.substring(0, resource.length() - ".dz".length()), false, 1);
+            for (int ranges : new int[] {1, 2, 3, 5, 6, 7, 16, 20, 100}) {
+                assertEquals(expected, load(resource, true, ranges), resource + " in " + ranges);
+            }
+        }
+    }
+
+    /**
+     * Load entries with charset and end of line detected from header.
+     */
+    private EntryTable load(final String resource, final boolean isDictZip, final int ranges)
+            throws URISyntaxException, IOException {
+        Path path = Paths.get(this.getClass().getResource(resource).toURI());
+        BlockSource source = BlockSource.open(path, isDictZip);
+        DictionaryHeader header;
+        try {
+            header = DictionaryHeader.read(source);
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+        try (EntriesLoaderImpl loader = new EntriesLoaderImpl(source, header.getCharset(), header.getEol())) {
+            return loader.loadParallel(ranges);
+        }
+    }
+}
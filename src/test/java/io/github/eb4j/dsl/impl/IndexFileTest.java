@@ -0,0 +1,305 @@
+package io.github.eb4j.dsl.impl;
+
+import io.github.eb4j.dsl.DslDictionary;
+import io.github.eb4j.dsl.data.DslDictionaryProperty;
+import io.github.eb4j.dsl.data.IndexMode;
+import io.github.eb4j.dsl.index.DslIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexFileTest {
+
+    private static final String[] HEADWORDS = {"tab", "Space", "space", "abandon", "tag", "Tab", "żółw", "tab"};
+
+    private static EntryTable entries() {
+        return entries(IndexMode.STANDARD);
+    }
+
+    private static EntryTable entries(final IndexMode mode) {
+        EntryTable entries = new EntryTable(mode);
+        for (int i = 0; i < HEADWORDS.length; i++) {
+            entries.add(HEADWORDS[i], i * 100L, 10, i * 100L + 10, 90 - i);
+        }
+        return entries;
+    }
+
+    @Test
+    void appendTable() {
+        EntryTable expected = entries();
+        EntryTable table = new EntryTable();
+        EntryTable tail = new EntryTable();
+        for (int i = 0; i < HEADWORDS.length; i++) {
+            EntryTable target = table;
+            if (i >= 3) {
+                target = tail;
+            }
+            target.add(HEADWORDS[i], i * 100L, 10, i * 100L + 10, 90 - i);
+        }
+        table.addAll(tail);
+        assertEquals(expected, table);
+        assertEquals("żółw", table.getHeadWord(6));
+        assertEquals(610L, table.getOffset(6));
+        assertEquals(84, table.getSize(6));
+    }
+
+    @Test
+    void appendTableFrom() {
+        for (IndexMode mode : IndexMode.values()) {
+            EntryTable expected = entries(mode);
+            EntryTable table = new EntryTable(mode);
+            EntryTable tail = new EntryTable(mode);
+            for (int i = 0; i < 3; i++) {
+                table.add(HEADWORDS[i], i * 100L, 10, i * 100L + 10, 90 - i);
+            }
+            // first two entries of tail are skipped
+            tail.add("skipped", 0L, 1, 1L, 1);
+            tail.add("Skipped", 0L, 1, 1L, 1);
+            for (int i = 3; i < HEADWORDS.length; i++) {
+                tail.add(HEADWORDS[i], i * 100L, 10, i * 100L + 10, 90 - i);
+            }
+            table.addAll(tail, 2);
+            assertEquals(expected, table);
+            assertEquals("żółw", table.getHeadWord(6));
+            table.addAll(tail, tail.size());
+            assertEquals(expected, table);
+        }
+    }
+
+    @Test
+    void buildIndex() {
+        PackedIndex index = PackedIndex.build(entries());
+        assertEquals(HEADWORDS.length, index.entryCount());
+        // abandon, space, Space, tab, Tab, tag, żółw
+        assertEquals(7, index.keyCount());
+        int id = index.find("tab");
+        assertEquals("tab", index.getKey(id));
+        // postings keep the order of entries: tab, Tab in lower case, and tab again
+        assertEquals(3, index.postingEnd(id) - index.postingStart(id));
+        assertEquals(0, index.getEntry(index.postingStart(id)));
+        assertEquals(5, index.getEntry(index.postingStart(id) + 1));
+        assertEquals(7, index.getEntry(index.postingStart(id) + 2));
+        assertEquals(-1, index.find("ta"));
+        int[] range = index.findPrefix("ta");
+        assertEquals(2, range[1] - range[0]);
+        assertEquals("Tab", index.getKey(index.findPrefix("T")[0]));
+        range = index.findPrefix("x");
+        assertEquals(range[0], range[1]);
+    }
+
+    @Test
+    void writeAndRead(@TempDir final Path tempDir) throws IOException {
+        PackedIndex index = PackedIndex.build(entries());
+        DslDictionaryProperty prop = new DslDictionaryProperty("Test", "English", null,
+                StandardCharsets.UTF_16LE, "\r\n".getBytes(StandardCharsets.UTF_16LE));
+        Path path = tempDir.resolve("test.dsl.idx");
+        new IndexFile("test.dsl", "/data", 1234L, 5678L, prop, index).write(path);
+
+        IndexFile indexFile = IndexFile.read(path);
+        assertEquals("test.dsl", indexFile.getFilename());
+        assertEquals("/data", indexFile.getParentPath());
+        assertEquals(1234L, indexFile.getFilesize());
+        assertEquals(5678L, indexFile.getLastModifiedTime());
+        assertEquals("Test", indexFile.getProperty().getDictionaryName());
+        assertEquals("English", indexFile.getProperty().getIndexLanguage());
+        assertNull(indexFile.getProperty().getContentLanguage());
+        assertEquals(StandardCharsets.UTF_16LE, indexFile.getProperty().getCharset());
+        assertArrayEquals("\r\n".getBytes(StandardCharsets.UTF_16LE), indexFile.getProperty().getEol());
+
+        PackedIndex mapped = indexFile.getIndex();
+        assertEquals(index.keyCount(), mapped.keyCount());
+        assertEquals(index.entryCount(), mapped.entryCount());
+        for (String word : HEADWORDS) {
+            int id = mapped.find(word);
+            assertEquals(index.find(word), id);
+            assertEquals(word, mapped.getKey(id));
+            for (int p = mapped.postingStart(id); p < mapped.postingEnd(id); p++) {
+                int en = mapped.getEntry(p);
+                assertEquals(index.getEntry(p), en);
+                assertEquals(index.getOffset(en), mapped.getOffset(en));
+                assertEquals(index.getSize(en), mapped.getSize(en));
+                assertEquals(index.getHeaderOffset(en), mapped.getHeaderOffset(en));
+                assertEquals(index.getHeaderSize(en), mapped.getHeaderSize(en));
+            }
+        }
+        assertArrayEquals(index.findPrefix("s"), mapped.findPrefix("s"));
+        for (int en = 0; en < HEADWORDS.length; en++) {
+            assertEquals(HEADWORDS[en], mapped.getHeadWord(en));
+        }
+    }
+
+    @Test
+    void overwriteWithTemporaryFile(@TempDir final Path tempDir) throws IOException {
+        PackedIndex index = PackedIndex.build(entries());
+        DslDictionaryProperty prop = new DslDictionaryProperty("Test", "English", null,
+                StandardCharsets.UTF_8, "\n".getBytes(StandardCharsets.UTF_8));
+        Path path = tempDir.resolve("test.dsl.idx");
+        // a temporary file left by other writer is neither used nor removed
+        Path stale = Files.write(tempDir.resolve("test.dsl.idx.tmp"), new byte[] {1, 2, 3});
+        new IndexFile("test.dsl", "/data", 1L, 2L, prop, index).write(path);
+        new IndexFile("test.dsl", "/data", 3L, 4L, prop, index).write(path);
+        assertEquals(3L, IndexFile.read(path).getFilesize());
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(stale));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void validateHeader(@TempDir final Path tempDir) throws IOException {
+        PackedIndex index = PackedIndex.build(entries(IndexMode.CASE_FOLDED));
+        DslDictionaryProperty prop = new DslDictionaryProperty("Test", "English", "Russian",
+                StandardCharsets.UTF_8, "\n".getBytes(StandardCharsets.UTF_8));
+        Path path = tempDir.resolve("test.dsl.idx");
+        new IndexFile("test.dsl", "/data", 1234L, 5678L, prop, index).write(path);
+        // validator sees header before sections are mapped
+        assertNull(IndexFile.read(path, header -> {
+            assertNull(header.getIndex());
+            assertEquals(1234L, header.getFilesize());
+            return header.getMode() == IndexMode.STANDARD;
+        }));
+        IndexFile indexFile = IndexFile.read(path, header -> header.getMode() == IndexMode.CASE_FOLDED);
+        assertEquals(IndexMode.CASE_FOLDED, indexFile.getMode());
+        assertEquals(index.entryCount(), indexFile.getIndex().entryCount());
+    }
+
+    @Test
+    void cardHeadWords() {
+        for (IndexMode mode : IndexMode.values()) {
+            EntryTable table = new EntryTable(mode);
+            // a card of three headwords shares header and article
+            table.add("Space", 0L, 30, 30L, 50);
+            table.add("tab", 0L, 30, 30L, 50);
+            table.add("\u212Aelvin", 0L, 30, 30L, 50);
+            table.add("tag", 80L, 5, 85L, 20);
+            PackedIndex index = PackedIndex.build(table);
+            for (int en = 0; en < 3; en++) {
+                assertEquals("Space\ntab\n\u212Aelvin", index.getCardHeadWords(en));
+            }
+            assertEquals("tag", index.getCardHeadWords(3));
+        }
+    }
+
+    @Test
+    void caseFoldedIndex(@TempDir final Path tempDir) throws IOException {
+        PackedIndex index = PackedIndex.build(entries(IndexMode.CASE_FOLDED));
+        assertEquals(IndexMode.CASE_FOLDED, index.getMode());
+        // abandon, space, tab, tag, żółw
+        assertEquals(5, index.keyCount());
+        assertEquals(-1, index.find("Tab"));
+        DslDictionaryProperty prop = new DslDictionaryProperty("Test", "English", "Russian",
+                StandardCharsets.UTF_8, "\n".getBytes(StandardCharsets.UTF_8));
+        Path path = tempDir.resolve("test.dsl.idx");
+        new IndexFile("test.dsl", "/data", 1234L, 5678L, prop, index).write(path);
+        PackedIndex mapped = IndexFile.read(path).getIndex();
+        assertEquals(IndexMode.CASE_FOLDED, mapped.getMode());
+        int id = mapped.find("tab");
+        assertEquals(3, mapped.postingEnd(id) - mapped.postingStart(id));
+        assertEquals("tab", mapped.getHeadWord("tab", mapped.getEntry(mapped.postingStart(id))));
+        assertEquals("Tab", mapped.getHeadWord("tab", mapped.getEntry(mapped.postingStart(id) + 1)));
+        id = mapped.find("space");
+        assertEquals("Space", mapped.getHeadWord("space", mapped.getEntry(mapped.postingStart(id))));
+        assertEquals("space", mapped.getHeadWord("space", mapped.getEntry(mapped.postingStart(id) + 1)));
+    }
+
+    @Test
+    void restoreCase() {
+        EntryTable table = new EntryTable(IndexMode.CASE_FOLDED);
+        // title case letter and Kelvin sign are not restored by upper case of folded key
+        String[] headWords = {"Tab", "ΟΔΟΣ", "οδος", "\u01C5ungla", "\u212Aelvin", "DSL4J-abcdefghijklmnopqrstuvwxyZ",
+            "\uD801\uDC00"};
+        for (int i = 0; i < headWords.length; i++) {
+            table.add(headWords[i], i * 100L, 10, i * 100L + 10, 90);
+        }
+        PackedIndex index = PackedIndex.build(table);
+        for (int i = 0; i < headWords.length; i++) {
+            String key = CaseMarks.fold(headWords[i]);
+            int id = index.find(key);
+            boolean found = false;
+            for (int p = index.postingStart(id); p < index.postingEnd(id); p++) {
+                found |= index.getEntry(p) == i && headWords[i].equals(index.getHeadWord(key, i));
+            }
+            assertTrue(found, headWords[i]);
+        }
+        assertEquals(index.find("οδοσ"), index.find(CaseMarks.fold("οδος")));
+    }
+
+    @Test
+    void rebuildStaleTrie(@TempDir final Path tempDir) throws IOException {
+        PackedIndex index = PackedIndex.build(entries());
+        DslDictionaryProperty prop = new DslDictionaryProperty("Test", "English", "Russian",
+                StandardCharsets.UTF_8, "\n".getBytes(StandardCharsets.UTF_8));
+        Path path = tempDir.resolve("test.dsl.idx");
+        new IndexFile("test.dsl", "/data", 1234L, 5678L, prop, index).write(path);
+        assertFalse(IndexFile.read(path).isTrieRebuilt());
+
+        changeTrieVersion(path);
+        IndexFile indexFile = IndexFile.read(path);
+        assertTrue(indexFile.isTrieRebuilt());
+        PackedIndex rebuilt = indexFile.getIndex();
+        for (String word : HEADWORDS) {
+            assertEquals(index.find(word), rebuilt.find(word));
+        }
+        assertArrayEquals(index.findPrefix("ta"), rebuilt.findPrefix("ta"));
+
+        indexFile.write(path);
+        assertFalse(IndexFile.read(path).isTrieRebuilt());
+    }
+
+    @Test
+    void saveRebuiltTrieOnLoad(@TempDir final Path tempDir) throws IOException, URISyntaxException {
+        Path dsl = Paths.get(this.getClass().getResource("/utf8_lf_el.dsl").toURI());
+        Path path = tempDir.resolve("utf8_lf_el.dsl.idx");
+        String expected = DslDictionary.loadDictionary(dsl, path).lookup("Japan").getArticle(0);
+        changeTrieVersion(path);
+        assertTrue(IndexFile.read(path).isTrieRebuilt());
+        // loader saves rebuilt trie while the loaded dictionary still serves its index
+        DslDictionary dictionary = DslDictionary.loadDictionary(dsl, path);
+        IndexFile indexFile = IndexFile.read(path);
+        assertFalse(indexFile.isTrieRebuilt());
+        assertEquals(expected, dictionary.lookup("Japan").getArticle(0));
+        assertEquals(indexFile.getIndex().entryCount(), IndexFile.read(path).getIndex().entryCount());
+    }
+
+    /**
+     * Change trie version of index file, which follows magic, index version and header size.
+     */
+    private static void changeTrieVersion(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ByteBuffer version = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            version.putInt(0, DoubleArray.VERSION + 1);
+            channel.write(version, 16);
+        }
+    }
+
+    @Test
+    void rejectOldIndex(@TempDir final Path tempDir) throws IOException {
+        Path path = tempDir.resolve("old.dsl.idx");
+        try (OutputStream os = new GZIPOutputStream(Files.newOutputStream(path))) {
+            DslIndex.newBuilder().setIndexVersion(2).setFilename("old.dsl")
+                    .addEntries(DslIndex.Entry.newBuilder().setHeadWord("tab").setOffset(10).setSize(90))
+                    .build().writeTo(os);
+        }
+        assertThrows(IOException.class, () -> IndexFile.read(path));
+    }
+}
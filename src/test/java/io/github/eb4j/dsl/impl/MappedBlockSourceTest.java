@@ -0,0 +1,39 @@
+package io.github.eb4j.dsl.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MappedBlockSourceTest {
+
+    @Test
+    void readAcrossSegments(@TempDir final Path tempDir) throws IOException {
+        byte[] data = new byte[10000];
+        new Random(1).nextBytes(data);
+        Path path = tempDir.resolve("data.dsl");
+        Files.write(path, data);
+        try (MappedBlockSource source = new MappedBlockSource(path, 1024)) {
+            assertEquals(data.length, source.length());
+            assertEquals(1024, source.getBlock(0).remaining());
+            assertEquals(10000 - 9 * 1024, source.getBlock(9).remaining());
+            assertNull(source.getBlock(10));
+            Random random = new Random(2);
+            for (int i = 0; i < 200; i++) {
+                int start = random.nextInt(data.length);
+                int size = random.nextInt(Math.min(3000, data.length - start) + 1);
+                byte[] bytes = new byte[size];
+                source.read(start, bytes);
+                assertArrayEquals(Arrays.copyOfRange(data, start, start + size), bytes);
+            }
+        }
+    }
+}